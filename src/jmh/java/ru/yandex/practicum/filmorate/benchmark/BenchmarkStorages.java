@@ -0,0 +1,139 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.Getter;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.GenreService;
+import ru.yandex.practicum.filmorate.service.LikeWriteBuffer;
+import ru.yandex.practicum.filmorate.service.MPAService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.genre.CachedGenreStorage;
+import ru.yandex.practicum.filmorate.storage.genre.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.genre.InMemoryGenreStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.CachedMPAStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.InMemoryMPAStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MPADbStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MPAStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Wires storages and services by hand, without a Spring context, so that a benchmark measures
+ * the storage code itself. {@code @Transactional} is therefore not applied: every statement
+ * runs in auto-commit mode, as it would outside of a service transaction.
+ */
+@Getter
+public class BenchmarkStorages implements AutoCloseable {
+
+    public static final String IN_MEMORY = "in-memory";
+    public static final String H2 = "h2";
+
+    private static final int REFERENCE_CACHE_SIZE = 1024;
+    private static final int RECOMMENDATION_SAMPLE_SIZE = 50;
+    private static final int SUGGESTIONS_MAX_VISITED = 100_000;
+    private static final int LIKE_BUFFER_MAX_PENDING = 10_000;
+    private static final String ADD_FRIEND = "INSERT INTO friendship(from_user_id, to_user_id, accepted) " +
+            "VALUES (?, ?, FALSE)";
+    private static final String ACCEPT_MUTUAL_FRIENDS = "UPDATE friendship f SET accepted = TRUE WHERE EXISTS " +
+            "(SELECT 1 FROM friendship r WHERE r.from_user_id = f.to_user_id AND r.to_user_id = f.from_user_id)";
+
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final FilmService filmService;
+    private final UserService userService;
+    private final JdbcTemplate jdbcTemplate;
+    private final HikariDataSource dataSource;
+
+    private BenchmarkStorages(FilmStorage filmStorage, UserStorage userStorage, GenreStorage genreStorage,
+                              MPAStorage mpaStorage, HikariDataSource dataSource) {
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        // Synchronous likes, and no listeners to publish user and film changes to
+        this.userService = new UserService(userStorage, validator, event -> { }, SUGGESTIONS_MAX_VISITED);
+        LikeWriteBuffer likeBuffer = new LikeWriteBuffer(filmStorage, false, Duration.ofSeconds(1),
+                LIKE_BUFFER_MAX_PENDING);
+        this.filmService = new FilmService(filmStorage, userService, new GenreService(genreStorage),
+                new MPAService(mpaStorage), validator, likeBuffer, event -> { }, RECOMMENDATION_SAMPLE_SIZE);
+        this.dataSource = dataSource;
+        this.jdbcTemplate = dataSource == null ? null : new JdbcTemplate(dataSource);
+    }
+
+    public static BenchmarkStorages create(String type) {
+        switch (type) {
+            case IN_MEMORY:
+                return inMemory();
+            case H2:
+                return h2();
+            default:
+                throw new IllegalArgumentException("Unknown storage type: " + type);
+        }
+    }
+
+    private static BenchmarkStorages inMemory() {
+        InMemoryGenreStorage genreStorage = new InMemoryGenreStorage();
+        InMemoryMPAStorage mpaStorage = new InMemoryMPAStorage();
+        return new BenchmarkStorages(new InMemoryFilmStorage(genreStorage, mpaStorage), new InMemoryUserStorage(),
+                genreStorage, mpaStorage, null);
+    }
+
+    private static BenchmarkStorages h2() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql"), new ClassPathResource("data.sql"))
+                .execute(dataSource);
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        GenreStorage genreStorage = new CachedGenreStorage(new GenreDbStorage(jdbcTemplate), REFERENCE_CACHE_SIZE);
+        MPAStorage mpaStorage = new CachedMPAStorage(new MPADbStorage(jdbcTemplate), REFERENCE_CACHE_SIZE);
+        return new BenchmarkStorages(new FilmDbStorage(jdbcTemplate, genreStorage, mpaStorage),
+                new UserDbStorage(jdbcTemplate), genreStorage, mpaStorage, dataSource);
+    }
+
+    /**
+     * Loads directed friendship edges. H2 is filled with a plain batch insert because going through
+     * {@link UserStorage#addToFriends} would take several statements per edge.
+     */
+    public void addFriendships(List<long[]> edges) {
+        if (jdbcTemplate == null) {
+            edges.forEach(edge -> userStorage.addToFriends(edge[0], edge[1]));
+            return;
+        }
+        jdbcTemplate.batchUpdate(ADD_FRIEND, edges, edges.size(), (ps, edge) -> {
+            ps.setLong(1, edge[0]);
+            ps.setLong(2, edge[1]);
+        });
+    }
+
+    public void finishFriendships() {
+        if (jdbcTemplate != null) {
+            jdbcTemplate.update(ACCEPT_MUTUAL_FRIENDS);
+        }
+    }
+
+    /**
+     * Drops the generated data rather than shutting H2 down: SHUTDOWN closes the connection it runs
+     * on, so the statement itself fails and the trial is reported as failed.
+     */
+    @Override
+    public void close() {
+        if (dataSource != null) {
+            jdbcTemplate.execute("DROP ALL OBJECTS");
+            dataSource.close();
+        }
+    }
+}
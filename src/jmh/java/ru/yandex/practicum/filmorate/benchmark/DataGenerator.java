@@ -0,0 +1,151 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.MPA;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Fills storages with a reproducible dataset: for the same seed and size the same films, users,
+ * likes and friendships are generated in the same order. Film popularity is skewed towards the
+ * first films so that top-N queries see a realistic long tail.
+ */
+public class DataGenerator {
+
+    public static final long DEFAULT_SEED = 20220601L;
+
+    private static final int CHUNK_SIZE = 10_000;
+    private static final int LIKES_PER_USER = 3;
+    private static final int FRIENDS_PER_USER = 5;
+    private static final int GENRES = 6;
+    private static final int RATINGS = 5;
+    private static final LocalDate FIRST_RELEASE = LocalDate.of(1950, 1, 1);
+
+    private final Random random;
+
+    public DataGenerator(long seed) {
+        random = new Random(seed);
+    }
+
+    /**
+     * Creates {@code size} films and {@code size} users. Every user but the last one likes
+     * {@value #LIKES_PER_USER} films and befriends up to {@value #FRIENDS_PER_USER} users;
+     * the last user is left idle for write benchmarks.
+     */
+    public Dataset populate(BenchmarkStorages storages, int size) {
+        long[] filmIds = new long[size];
+        long[] userIds = new long[size];
+        for (int from = 0; from < size; from += CHUNK_SIZE) {
+            int to = Math.min(size, from + CHUNK_SIZE);
+            List<Film> films = new ArrayList<>(to - from);
+            List<User> users = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                films.add(film(i));
+                users.add(user(i));
+            }
+            List<Film> createdFilms = storages.getFilmStorage().createAll(films);
+            List<User> createdUsers = storages.getUserStorage().createAll(users);
+            for (int i = from; i < to; i++) {
+                filmIds[i] = createdFilms.get(i - from).getId();
+                userIds[i] = createdUsers.get(i - from).getId();
+            }
+        }
+
+        List<Like> likes = new ArrayList<>(CHUNK_SIZE * LIKES_PER_USER);
+        List<long[]> friendships = new ArrayList<>(CHUNK_SIZE * FRIENDS_PER_USER);
+        for (int i = 0; i < size - 1; i++) {
+            for (int filmIndex : distinct(LIKES_PER_USER, size, true, -1)) {
+                likes.add(Like.builder().filmId(filmIds[filmIndex]).userId(userIds[i]).build());
+            }
+            for (int friendIndex : distinct(FRIENDS_PER_USER, size - 1, false, i)) {
+                friendships.add(new long[]{userIds[i], userIds[friendIndex]});
+            }
+            if (likes.size() >= CHUNK_SIZE || i == size - 2) {
+                storages.getFilmStorage().addLikes(likes);
+                storages.addFriendships(friendships);
+                likes.clear();
+                friendships.clear();
+            }
+        }
+        storages.finishFriendships();
+        return new Dataset(filmIds, userIds);
+    }
+
+    /**
+     * Adds two users with {@code friends} friends each, half of them shared, so the friend list and
+     * common friends queries are also measured on high-degree users. Their friends are new users
+     * numbered from {@code firstIndex}, so the degrees of the generated dataset stay as they are.
+     *
+     * @return the ids of the two users
+     */
+    public long[] addFriendHubs(BenchmarkStorages storages, int firstIndex, int friends) {
+        int shared = friends / 2;
+        int total = 2 + 2 * friends - shared;
+        long[] userIds = new long[total];
+        for (int from = 0; from < total; from += CHUNK_SIZE) {
+            int to = Math.min(total, from + CHUNK_SIZE);
+            List<User> users = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                users.add(user(firstIndex + i));
+            }
+            List<User> created = storages.getUserStorage().createAll(users);
+            for (int i = from; i < to; i++) {
+                userIds[i] = created.get(i - from).getId();
+            }
+        }
+
+        long[] hubIds = {userIds[0], userIds[1]};
+        List<long[]> friendships = new ArrayList<>(2 * friends);
+        for (int i = 0; i < friends; i++) {
+            friendships.add(new long[]{hubIds[0], userIds[2 + i]});
+            friendships.add(new long[]{hubIds[1], userIds[2 + friends - shared + i]});
+        }
+        storages.addFriendships(friendships);
+        return hubIds;
+    }
+
+    private Film film(int index) {
+        Set<Genre> genres = new HashSet<>();
+        int genreCount = random.nextInt(4);
+        for (int i = 0; i < genreCount; i++) {
+            genres.add(Genre.builder().id(1 + random.nextInt(GENRES)).build());
+        }
+        return Film.builder()
+                .name("Film " + index)
+                .description("Generated film number " + index)
+                .duration(60 + random.nextInt(120))
+                .releaseDate(FIRST_RELEASE.plusDays(random.nextInt(70 * 365)))
+                .mpa(MPA.builder().id(1 + random.nextInt(RATINGS)).build())
+                .genres(genres)
+                .build();
+    }
+
+    private User user(int index) {
+        return User.builder()
+                .email("user" + index + "@filmorate.ru")
+                .login("user" + index)
+                .name("User " + index)
+                .birthday(LocalDate.of(1960, 1, 1).plusDays(random.nextInt(40 * 365)))
+                .build();
+    }
+
+    private Set<Integer> distinct(int count, int bound, boolean isSkewed, int excluded) {
+        Set<Integer> result = new HashSet<>();
+        int limit = Math.min(count, bound - (excluded >= 0 ? 1 : 0));
+        while (result.size() < limit) {
+            int index = isSkewed ? (int) (bound * Math.pow(random.nextDouble(), 3)) : random.nextInt(bound);
+            if (index != excluded) {
+                result.add(index);
+            }
+        }
+        return result;
+    }
+}
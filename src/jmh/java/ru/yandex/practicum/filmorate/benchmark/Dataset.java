@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Ids of the generated entities in creation order. The last user has no likes and no friends.
+ */
+public class Dataset {
+
+    private final long[] filmIds;
+    private final long[] userIds;
+
+    Dataset(long[] filmIds, long[] userIds) {
+        this.filmIds = filmIds;
+        this.userIds = userIds;
+    }
+
+    public long randomFilmId() {
+        return filmIds[ThreadLocalRandom.current().nextInt(filmIds.length)];
+    }
+
+    public long randomUserId() {
+        return userIds[ThreadLocalRandom.current().nextInt(userIds.length - 1)];
+    }
+
+    public long idleUserId() {
+        return userIds[userIds.length - 1];
+    }
+}
@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.storage.LongSet;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap retained per like/friendship edge by the old boxed {@code Map<Long, Set<Long>>} adjacency
+ * and by the {@link LongSet} one used in the in-memory storages. The result of interest is the
+ * {@code bytesPerEdge} secondary metric; the primary score is just the time to build the graph.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 3, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+@State(Scope.Benchmark)
+public class EdgeMemoryBenchmark {
+
+    private static final String BOXED = "boxed";
+    private static final String PRIMITIVE = "primitive";
+    private static final int AVERAGE_DEGREE = 20;
+
+    @Param({BOXED, PRIMITIVE})
+    public String representation;
+
+    @Param({"1000000", "10000000"})
+    public int edges;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+
+        public double bytesPerEdge;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytesPerEdge = 0;
+        }
+    }
+
+    @Benchmark
+    public Object buildAdjacency(Footprint footprint) {
+        long before = usedHeap();
+        Random random = new Random(DataGenerator.DEFAULT_SEED);
+        int owners = Math.max(1, edges / AVERAGE_DEGREE);
+        long stored = 0;
+        Object adjacency;
+        if (BOXED.equals(representation)) {
+            Map<Long, Set<Long>> graph = new HashMap<>();
+            for (int i = 0; i < edges; i++) {
+                if (graph.computeIfAbsent(1L + i % owners, key -> new HashSet<>()).add(1L + random.nextInt(edges))) {
+                    stored++;
+                }
+            }
+            adjacency = graph;
+        } else {
+            Map<Long, LongSet> graph = new ConcurrentHashMap<>();
+            for (int i = 0; i < edges; i++) {
+                if (graph.computeIfAbsent(1L + i % owners, key -> new LongSet()).add(1L + random.nextInt(edges))) {
+                    stored++;
+                }
+            }
+            adjacency = graph;
+        }
+        footprint.bytesPerEdge = (double) (usedHeap() - before) / stored;
+        return adjacency;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class FilmBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+    private static final int TOP_SIZE = 10;
+
+    @Param({BenchmarkStorages.IN_MEMORY, BenchmarkStorages.H2})
+    public String storage;
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private BenchmarkStorages storages;
+    private Dataset dataset;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        storages = BenchmarkStorages.create(storage);
+        dataset = new DataGenerator(DataGenerator.DEFAULT_SEED).populate(storages, size);
+        // There is no Spring context to run @PostConstruct, and the leaderboard must see the loaded likes
+        storages.getFilmService().rebuildIndexes();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        storages.close();
+    }
+
+    @Benchmark
+    public Optional<Film> findFilmById() {
+        return storages.getFilmStorage().findById(dataset.randomFilmId());
+    }
+
+    @Benchmark
+    public List<Film> findFilmsPage() {
+        return storages.getFilmStorage().findAll(dataset.randomFilmId(), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Film> findTopLikableFilms() {
+        return storages.getFilmService().findTopLikableFilms(TOP_SIZE);
+    }
+
+    @Benchmark
+    public boolean likeAndUnlikeFilm() {
+        long filmId = dataset.randomFilmId();
+        storages.getFilmStorage().addLikeToFilm(filmId, dataset.idleUserId());
+        return storages.getFilmStorage().removeLikeFromFilm(filmId, dataset.idleUserId());
+    }
+}
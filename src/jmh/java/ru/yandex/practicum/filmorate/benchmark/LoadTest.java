@@ -0,0 +1,205 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.metrics.LatencyHistogram;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.MPA;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput of the HTTP endpoints against the connection pool size. For every pool size the
+ * application is started with the prod and inmemory profiles on a fresh database, seeded through
+ * the services and then driven by a fixed number of client threads with a mixed workload:
+ * film lookups, popular films, friend lists, common friends, and like/unlike pairs.
+ * <p>
+ * Arguments: pool sizes (comma separated), client threads, seconds per pool size.
+ */
+public class LoadTest {
+
+    private static final int USERS = 5_000;
+    private static final int FILMS = 5_000;
+    private static final int LIKES_PER_USER = 3;
+    private static final int FRIENDS_PER_USER = 5;
+    private static final int WARMUP_SECONDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int[] poolSizes = args.length > 0
+                ? Arrays.stream(args[0].split(",")).mapToInt(Integer::parseInt).toArray()
+                : new int[]{4, 8, 16, 32};
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        List<String> report = new ArrayList<>();
+        for (int poolSize : poolSizes) {
+            report.add(run(poolSize, clients, seconds));
+        }
+        System.out.printf("%n%6s %12s %10s %10s %10s %8s%n", "pool", "requests/s", "p50 us", "p99 us", "max us",
+                "errors");
+        report.forEach(System.out::println);
+    }
+
+    private static String run(int poolSize, int clients, int seconds) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(FilmorateApplication.class)
+                .profiles("prod", "inmemory")
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:load" + poolSize
+                                + ";DB_CLOSE_DELAY=-1;QUERY_CACHE_SIZE=64;LOCK_TIMEOUT=10000",
+                        "--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                        "--spring.datasource.hikari.minimum-idle=" + poolSize,
+                        "--server.tomcat.threads.max=" + Math.max(clients, poolSize),
+                        "--filmorate.logging.sample-rate=0",
+                        "--logging.level.root=WARN")) {
+            seed(context);
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            drive(baseUrl, clients, WARMUP_SECONDS);
+            return drive(baseUrl, clients, seconds).format(poolSize);
+        }
+    }
+
+    private static void seed(ConfigurableApplicationContext context) {
+        Random random = new Random(DataGenerator.DEFAULT_SEED);
+        FilmService filmService = context.getBean(FilmService.class);
+        UserService userService = context.getBean(UserService.class);
+
+        List<User> users = new ArrayList<>();
+        List<Film> films = new ArrayList<>();
+        for (int i = 1; i <= USERS; i++) {
+            users.add(User.builder()
+                    .email("user" + i + "@filmorate.ru")
+                    .login("user" + i)
+                    .name("User " + i)
+                    .birthday(LocalDate.of(1990, 1, 1).plusDays(random.nextInt(5000)))
+                    .build());
+        }
+        for (int i = 1; i <= FILMS; i++) {
+            films.add(Film.builder()
+                    .name("Film " + i)
+                    .description("Generated film number " + i)
+                    .duration(60 + random.nextInt(120))
+                    .releaseDate(LocalDate.of(1960, 1, 1).plusDays(random.nextInt(20_000)))
+                    .mpa(MPA.builder().id(1 + random.nextInt(5)).build())
+                    .genres(Set.of(Genre.builder().id(1 + random.nextInt(6)).build()))
+                    .build());
+        }
+        userService.createUsers(users);
+        filmService.createFilms(films);
+
+        List<Like> likes = new ArrayList<>();
+        for (long userId = 1; userId <= USERS; userId++) {
+            for (int i = 0; i < LIKES_PER_USER; i++) {
+                long filmId = 1 + (long) (FILMS * Math.pow(random.nextDouble(), 3));
+                likes.add(Like.builder().filmId(filmId).userId(userId).build());
+            }
+            for (int i = 0; i < FRIENDS_PER_USER; i++) {
+                long friendId = 1 + random.nextInt(USERS);
+                if (friendId != userId) {
+                    userService.addToFriends(userId, friendId);
+                }
+            }
+        }
+        filmService.addLikes(likes);
+    }
+
+    private static Result drive(String baseUrl, int clients, int seconds) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        LatencyHistogram latencyMicros = new LatencyHistogram();
+        LongAdder errors = new LongAdder();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            futures.add(executor.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    for (HttpRequest request : nextRequests(baseUrl)) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 500) {
+                                errors.increment();
+                            }
+                        } catch (IOException e) {
+                            errors.increment();
+                        }
+                        latencyMicros.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        return new Result(latencyMicros, errors.sum(), seconds);
+    }
+
+    private static List<HttpRequest> nextRequests(String baseUrl) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long filmId = 1 + random.nextInt(FILMS);
+        long userId = 1 + random.nextInt(USERS);
+        int choice = random.nextInt(100);
+        if (choice < 40) {
+            return List.of(get(baseUrl + "/films/" + filmId));
+        } else if (choice < 60) {
+            return List.of(get(baseUrl + "/films/popular?count=10"));
+        } else if (choice < 80) {
+            return List.of(get(baseUrl + "/users/" + userId + "/friends"));
+        } else if (choice < 90) {
+            return List.of(get(baseUrl + "/users/" + userId + "/friends/common/" + (1 + random.nextInt(USERS))));
+        }
+        String like = baseUrl + "/films/" + filmId + "/like/" + userId;
+        return List.of(HttpRequest.newBuilder(URI.create(like)).PUT(HttpRequest.BodyPublishers.noBody()).build(),
+                HttpRequest.newBuilder(URI.create(like)).DELETE().build());
+    }
+
+    private static HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).GET().build();
+    }
+
+    private static class Result {
+
+        private final LatencyHistogram latencyMicros;
+        private final long errors;
+        private final int seconds;
+
+        Result(LatencyHistogram latencyMicros, long errors, int seconds) {
+            this.latencyMicros = latencyMicros;
+            this.errors = errors;
+            this.seconds = seconds;
+        }
+
+        String format(int poolSize) {
+            return String.format("%6d %12.0f %10d %10d %10d %8d", poolSize,
+                    (double) latencyMicros.getCount() / seconds, latencyMicros.getValueAtQuantile(0.5),
+                    latencyMicros.getValueAtQuantile(0.99), latencyMicros.getMax(), errors);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.service.FilmRecommender;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recommendations on a million likes: {@code users} users with {@code likesPerUser} likes each over
+ * {@value #FILMS} films, popularity skewed towards the first films as in {@link DataGenerator}.
+ * The index is filled directly, since storage only feeds it at startup and on likes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class RecommendationBenchmark {
+
+    private static final int FILMS = 100_000;
+    private static final int SAMPLE_SIZE = 50;
+    private static final int LIMIT = 10;
+
+    @Param({"5000"})
+    public int users;
+
+    @Param({"200"})
+    public int likesPerUser;
+
+    private FilmRecommender recommender;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(DataGenerator.DEFAULT_SEED);
+        recommender = new FilmRecommender(SAMPLE_SIZE);
+        for (long userId = 1; userId <= users; userId++) {
+            Set<Long> films = new HashSet<>();
+            while (films.size() < Math.min(likesPerUser, FILMS)) {
+                films.add(1 + (long) (FILMS * Math.pow(random.nextDouble(), 3)));
+            }
+            for (long filmId : films) {
+                recommender.addLike(filmId, userId);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Long> recommend() {
+        return recommender.recommend(randomUserId(), LIMIT);
+    }
+
+    /**
+     * Likes a film outside the dataset, so the unlike always reverses a new like and the user's
+     * other likes stay as generated.
+     */
+    @Benchmark
+    public void likeAndUnlikeFilm() {
+        long userId = randomUserId();
+        long filmId = FILMS + 1 + ThreadLocalRandom.current().nextInt(FILMS);
+        recommender.addLike(filmId, userId);
+        recommender.removeLike(filmId, userId);
+    }
+
+    private long randomUserId() {
+        return 1 + ThreadLocalRandom.current().nextInt(users);
+    }
+}
@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class UserBenchmark {
+
+    @Param({BenchmarkStorages.IN_MEMORY, BenchmarkStorages.H2})
+    public String storage;
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param({"10000"})
+    public int hubFriends;
+
+    private BenchmarkStorages storages;
+    private Dataset dataset;
+    private long[] hubIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        storages = BenchmarkStorages.create(storage);
+        DataGenerator generator = new DataGenerator(DataGenerator.DEFAULT_SEED);
+        dataset = generator.populate(storages, size);
+        hubIds = generator.addFriendHubs(storages, size, hubFriends);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        storages.close();
+    }
+
+    @Benchmark
+    public List<User> getListOfFriends() {
+        return storages.getUserStorage().getListOfFriends(dataset.randomUserId());
+    }
+
+    @Benchmark
+    public List<User> getListOfCommonFriends() {
+        return storages.getUserStorage().getListOfCommonFriends(dataset.randomUserId(), dataset.randomUserId());
+    }
+
+    @Benchmark
+    public List<User> getListOfFriendsOfHub() {
+        return storages.getUserStorage().getListOfFriends(hubIds[0]);
+    }
+
+    @Benchmark
+    public List<User> getListOfCommonFriendsOfHubs() {
+        return storages.getUserStorage().getListOfCommonFriends(hubIds[0], hubIds[1]);
+    }
+}
@@ -0,0 +1,55 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Conditional GET support: the ETag is computed up front from entity versions, and the body
+ * supplier is only called when the client's {@code If-None-Match} does not match it. A {@code *}
+ * matches any existing entity, so it is only answered after the body is found.
+ */
+final class ETags {
+
+    private static final String ANY = "*";
+
+    private ETags() {
+    }
+
+    static <T> ResponseEntity<T> conditional(String ifNoneMatch, String eTag, Supplier<Optional<T>> body) {
+        if (matches(ifNoneMatch, eTag)) {
+            return notModified(eTag);
+        }
+        Optional<T> value = body.get();
+        if (value.isPresent() && matches(ifNoneMatch, ANY)) {
+            return notModified(eTag);
+        }
+        return value.map(found -> ResponseEntity.ok().eTag(eTag).body(found))
+                .orElseGet(() -> new ResponseEntity<>(null, HttpStatus.NOT_FOUND));
+    }
+
+    /**
+     * @return whether {@code If-None-Match} lists {@code eTag}, weak or not
+     */
+    static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+    }
+}
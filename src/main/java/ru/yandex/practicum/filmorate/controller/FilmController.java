@@ -1,11 +1,18 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.BulkResult;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.service.FilmChangeFeed;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
 import javax.validation.Valid;
@@ -20,11 +27,53 @@ import java.util.List;
 )
 public class FilmController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
     private final FilmService service;
+    private final ObjectMapper objectMapper;
+    private final FilmChangeFeed changeFeed;
 
     @GetMapping
-    public ResponseEntity<List<Film>> findAllFilms() {
-        return new ResponseEntity<>(service.findAllFilms(), HttpStatus.OK);
+    public ResponseEntity<List<Film>> findAllFilms(@RequestParam(required = false) Long after,
+                                                   @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            return new ResponseEntity<>(service.findAllFilms(), HttpStatus.OK);
+        }
+        int pageSize = FilmService.pageSize(limit == null ? DEFAULT_PAGE_SIZE : limit);
+        List<Film> films = service.findFilmsPage(after == null ? 0 : after, pageSize);
+        HttpHeaders headers = new HttpHeaders();
+        if (!films.isEmpty() && films.size() >= pageSize) {
+            headers.set(NEXT_CURSOR_HEADER, String.valueOf(films.get(films.size() - 1).getId()));
+        }
+        return new ResponseEntity<>(films, headers, HttpStatus.OK);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<Film>> searchFilms(@RequestParam(required = false) String q,
+                                                  @RequestParam(required = false) Integer genre,
+                                                  @RequestParam(required = false) Integer mpa,
+                                                  @RequestParam(required = false) Integer year,
+                                                  @RequestParam(defaultValue = "0") long after,
+                                                  @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        int pageSize = FilmService.pageSize(limit);
+        List<Film> films = service.searchFilms(q, genre, mpa, year, after, pageSize);
+        HttpHeaders headers = new HttpHeaders();
+        if (!films.isEmpty() && films.size() >= pageSize) {
+            headers.set(NEXT_CURSOR_HEADER, String.valueOf(films.get(films.size() - 1).getId()));
+        }
+        return new ResponseEntity<>(films, headers, HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportFilms() {
+        return new ResponseEntity<>(NdjsonBody.<Film>of(objectMapper, service::exportFilms), HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamChanges() {
+        return changeFeed.subscribe().map(emitter -> new ResponseEntity<>(emitter, HttpStatus.OK))
+                .orElseGet(() -> new ResponseEntity<>(null, HttpStatus.SERVICE_UNAVAILABLE));
     }
 
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
@@ -32,6 +81,16 @@ public class FilmController {
         return new ResponseEntity<>(service.createFilm(film), HttpStatus.CREATED);
     }
 
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkResult<Film>> createFilms(@RequestBody List<Film> films) {
+        return new ResponseEntity<>(service.createFilms(films), HttpStatus.OK);
+    }
+
+    @PutMapping(value = "/likes/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkResult<Like>> addLikes(@RequestBody List<Like> likes) {
+        return new ResponseEntity<>(service.addLikes(likes), HttpStatus.OK);
+    }
+
     @PutMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<Film> updateFilm(@Valid @RequestBody Film film) {
         return service.updateFilm(film).map(value -> new ResponseEntity<>(value, HttpStatus.OK))
@@ -39,9 +98,10 @@ public class FilmController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Film> findFilmById(@PathVariable long id) {
-        return service.findFilmById(id).map(film -> new ResponseEntity<>(film, HttpStatus.OK))
-                .orElseGet(() -> new ResponseEntity<>(null, HttpStatus.NOT_FOUND));
+    public ResponseEntity<Film> findFilmById(@PathVariable long id,
+                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                             String ifNoneMatch) {
+        return ETags.conditional(ifNoneMatch, service.getFilmETag(id), () -> service.findFilmById(id));
     }
 
     @DeleteMapping("/{id}")
@@ -1,17 +1,19 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.service.GenreService;
 
 import java.util.List;
+import java.util.Optional;
 
 @RequiredArgsConstructor
 @RestController
@@ -25,13 +27,15 @@ public class GenreController {
     private final GenreService service;
 
     @GetMapping()
-    public ResponseEntity<List<Genre>> findAllGenres() {
-        return new ResponseEntity<>(service.findAllGenres(), HttpStatus.OK);
+    public ResponseEntity<List<Genre>> findAllGenres(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH,
+            required = false) String ifNoneMatch) {
+        return ETags.conditional(ifNoneMatch, service.getGenresETag(), () -> Optional.of(service.findAllGenres()));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Genre> findGenreById(@PathVariable int id) {
-        return service.findGenreById(id).map(genre -> new ResponseEntity<>(genre, HttpStatus.OK))
-                .orElseGet(() -> new ResponseEntity<>(null, HttpStatus.NOT_FOUND));
+    public ResponseEntity<Genre> findGenreById(@PathVariable int id,
+                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                               String ifNoneMatch) {
+        return ETags.conditional(ifNoneMatch, service.getGenreETag(id), () -> service.findGenreById(id));
     }
 }
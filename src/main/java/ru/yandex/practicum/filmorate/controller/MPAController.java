@@ -1,17 +1,19 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import ru.yandex.practicum.filmorate.model.MPA;
 import ru.yandex.practicum.filmorate.service.MPAService;
 
 import java.util.List;
+import java.util.Optional;
 
 @RequiredArgsConstructor
 @RestController
@@ -25,14 +27,16 @@ public class MPAController {
     private final MPAService service;
 
     @GetMapping()
-    public ResponseEntity<List<MPA>> findAllRatings() {
-        return new ResponseEntity<>(service.findAllRatings(), HttpStatus.OK);
+    public ResponseEntity<List<MPA>> findAllRatings(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH,
+            required = false) String ifNoneMatch) {
+        return ETags.conditional(ifNoneMatch, service.getRatingsETag(), () -> Optional.of(service.findAllRatings()));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<MPA> findRatingById(@PathVariable int id) {
-        return service.findRatingById(id).map(mpa -> new ResponseEntity<>(mpa, HttpStatus.OK))
-                .orElseGet(() -> new ResponseEntity<>(null, HttpStatus.NOT_FOUND));
+    public ResponseEntity<MPA> findRatingById(@PathVariable int id,
+                                              @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                              String ifNoneMatch) {
+        return ETags.conditional(ifNoneMatch, service.getRatingETag(id), () -> service.findRatingById(id));
     }
 
 }
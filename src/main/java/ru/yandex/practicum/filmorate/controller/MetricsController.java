@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.model.Metrics;
+import ru.yandex.practicum.filmorate.service.MetricsService;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping(
+        value = "/metrics",
+        consumes = MediaType.ALL_VALUE,
+        produces = MediaType.APPLICATION_JSON_VALUE
+)
+public class MetricsController {
+
+    private final MetricsService service;
+
+    @GetMapping()
+    public ResponseEntity<Metrics> getMetrics() {
+        return new ResponseEntity<>(service.getMetrics(), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,41 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Response body writing one JSON document per line as the producer hands items over,
+ * without collecting them into a list first.
+ */
+final class NdjsonBody {
+
+    private static final byte LINE_SEPARATOR = '\n';
+
+    private NdjsonBody() {
+    }
+
+    static <T> StreamingResponseBody of(ObjectMapper objectMapper, Consumer<Consumer<T>> producer) {
+        return outputStream -> {
+            try {
+                producer.accept(item -> writeLine(objectMapper, outputStream, item));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            outputStream.flush();
+        };
+    }
+
+    private static void writeLine(ObjectMapper objectMapper, OutputStream outputStream, Object item) {
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(item));
+            outputStream.write(LINE_SEPARATOR);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
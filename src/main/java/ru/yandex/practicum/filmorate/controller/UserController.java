@@ -1,11 +1,17 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.BulkResult;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import javax.validation.Valid;
@@ -20,11 +26,30 @@ import java.util.List;
 )
 public class UserController {
 
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
     private final UserService service;
+    private final FilmService filmService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
-    public ResponseEntity<List<User>> findAllUsers() {
-        return new ResponseEntity<>(service.findAllUsers(), HttpStatus.OK);
+    public ResponseEntity<List<User>> findAllUsers(@RequestParam(required = false) Long after,
+                                                   @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            return new ResponseEntity<>(service.findAllUsers(), HttpStatus.OK);
+        }
+        int pageSize = UserService.pageSize(limit == null ? DEFAULT_PAGE_SIZE : limit);
+        List<User> users = service.findUsersPage(after == null ? 0 : after, pageSize);
+        HttpHeaders headers = new HttpHeaders();
+        if (!users.isEmpty() && users.size() >= pageSize) {
+            headers.set(FilmController.NEXT_CURSOR_HEADER, String.valueOf(users.get(users.size() - 1).getId()));
+        }
+        return new ResponseEntity<>(users, headers, HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        return new ResponseEntity<>(NdjsonBody.<User>of(objectMapper, service::exportUsers), HttpStatus.OK);
     }
 
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
@@ -32,6 +57,11 @@ public class UserController {
         return new ResponseEntity<>(service.createUser(user), HttpStatus.CREATED);
     }
 
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkResult<User>> createUsers(@RequestBody List<User> users) {
+        return new ResponseEntity<>(service.createUsers(users), HttpStatus.OK);
+    }
+
     @PutMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<User> updateUser(@Valid @RequestBody User user) {
         return service.updateUser(user).map(updatedUser -> new ResponseEntity<>(updatedUser, HttpStatus.OK))
@@ -39,9 +69,10 @@ public class UserController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<User> findUserById(@PathVariable long id) {
-        return service.findUserById(id).map(user -> new ResponseEntity<>(user, HttpStatus.OK))
-                .orElseGet(() -> new ResponseEntity<>(null, HttpStatus.NOT_FOUND));
+    public ResponseEntity<User> findUserById(@PathVariable long id,
+                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                             String ifNoneMatch) {
+        return ETags.conditional(ifNoneMatch, service.getUserETag(id), () -> service.findUserById(id));
     }
 
     @DeleteMapping("/{id}")
@@ -50,11 +81,27 @@ public class UserController {
                 : new ResponseEntity<>(null, HttpStatus.NOT_FOUND);
     }
 
+    @GetMapping("/{id}/recommendations")
+    public ResponseEntity<List<Film>> findRecommendations(@PathVariable long id,
+                                                          @RequestParam(defaultValue = "10") int limit) {
+        return service.existsById(id)
+                ? new ResponseEntity<>(filmService.getRecommendations(id, limit), HttpStatus.OK)
+                : new ResponseEntity<>(null, HttpStatus.NOT_FOUND);
+    }
+
     @GetMapping("/{id}/friends")
     public ResponseEntity<List<User>> findUserFriends(@PathVariable long id) {
         return new ResponseEntity<>(service.getListOfFriends(id), HttpStatus.OK);
     }
 
+    @GetMapping("/{id}/friends/suggestions")
+    public ResponseEntity<List<User>> findFriendSuggestions(@PathVariable long id,
+                                                            @RequestParam(defaultValue = "10") int limit) {
+        return service.existsById(id)
+                ? new ResponseEntity<>(service.getFriendSuggestions(id, limit), HttpStatus.OK)
+                : new ResponseEntity<>(null, HttpStatus.NOT_FOUND);
+    }
+
     @GetMapping("/{id}/friends/common/{otherId}")
     public ResponseEntity<List<User>> findCommonFriends(@PathVariable long id, @PathVariable long otherId) {
         return new ResponseEntity<>(service.getListOfCommonFriends(id, otherId), HttpStatus.OK);
@@ -5,15 +5,37 @@ import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
+/**
+ * Request journal for controller calls: one line per sampled call with argument and result
+ * summaries. Collections are reported by size and other payloads are cut to
+ * {@code filmorate.logging.max-payload-length} characters, and nothing is rendered
+ * when the call is not sampled or INFO is disabled.
+ */
 @Aspect
 @Component
 @Slf4j
 public class Logger {
 
+    private final double sampleRate;
+    private final int maxPayloadLength;
+
+    public Logger(@Value("${filmorate.logging.sample-rate:1.0}") double sampleRate,
+                  @Value("${filmorate.logging.max-payload-length:200}") int maxPayloadLength) {
+        this.sampleRate = sampleRate;
+        this.maxPayloadLength = maxPayloadLength;
+    }
+
     @Pointcut("(@annotation(org.springframework.web.bind.annotation.GetMapping) || " +
             "@annotation(org.springframework.web.bind.annotation.PostMapping) || " +
             "@annotation(org.springframework.web.bind.annotation.DeleteMapping) ||" +
@@ -23,8 +45,8 @@ public class Logger {
 
     @Around("controllers()")
     public Object invoke(ProceedingJoinPoint joinPoint) {
-        log.info("Enter: {}.{}(): argument[s] {}", joinPoint.getSignature().getDeclaringTypeName(),
-                    joinPoint.getSignature().getName(), Arrays.toString(joinPoint.getArgs()));
+        boolean isSampled = log.isInfoEnabled() && isSampled();
+        long start = isSampled ? System.nanoTime() : 0;
 
         final Object result;
         try {
@@ -33,8 +55,36 @@ public class Logger {
             throw new RuntimeException(e);
         }
 
-        log.info("Exit: {}.{}(): result {}", joinPoint.getSignature().getDeclaringTypeName(),
-                joinPoint.getSignature().getName(), result);
+        if (isSampled) {
+            log.info("{}.{}(): argument[s] {}, result {}, {} ms", joinPoint.getSignature().getDeclaringType()
+                            .getSimpleName(), joinPoint.getSignature().getName(), summarizeArgs(joinPoint.getArgs()),
+                    summarize(result), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
         return result;
     }
+
+    private boolean isSampled() {
+        return sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    private String summarizeArgs(Object[] args) {
+        return Arrays.stream(args)
+                .map(this::summarize)
+                .collect(Collectors.joining(", ", "[", "]"));
+    }
+
+    private String summarize(Object value) {
+        if (value instanceof ResponseEntity) {
+            ResponseEntity<?> response = (ResponseEntity<?>) value;
+            return response.getStatusCodeValue() + " " + summarize(response.getBody());
+        }
+        if (value instanceof Collection) {
+            return value.getClass().getSimpleName() + "[size=" + ((Collection<?>) value).size() + "]";
+        }
+        if (value instanceof Map) {
+            return value.getClass().getSimpleName() + "[size=" + ((Map<?, ?>) value).size() + "]";
+        }
+        String text = String.valueOf(value);
+        return text.length() > maxPayloadLength ? text.substring(0, maxPayloadLength) + "..." : text;
+    }
 }
@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import ru.yandex.practicum.filmorate.model.EndpointStats;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+class EndpointMetrics {
+
+    private final String endpoint;
+    private final LatencyHistogram latencyMicros = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder statements = new LongAdder();
+    private final LongAccumulator maxStatements = new LongAccumulator(Math::max, 0);
+
+    EndpointMetrics(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    void record(long durationNanos, long statementCount, boolean isError) {
+        latencyMicros.record(TimeUnit.NANOSECONDS.toMicros(durationNanos));
+        statements.add(statementCount);
+        maxStatements.accumulate(statementCount);
+        if (isError) {
+            errors.increment();
+        }
+    }
+
+    EndpointStats toStats(long uptimeNanos) {
+        long requests = latencyMicros.getCount();
+        double uptimeSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(uptimeNanos));
+        return EndpointStats.builder()
+                .endpoint(endpoint)
+                .requests(requests)
+                .errors(errors.sum())
+                .requestsPerSecond(requests / uptimeSeconds)
+                .latencyMeanMicros(latencyMicros.getMean())
+                .latencyP50Micros(latencyMicros.getValueAtQuantile(0.5))
+                .latencyP90Micros(latencyMicros.getValueAtQuantile(0.9))
+                .latencyP99Micros(latencyMicros.getValueAtQuantile(0.99))
+                .latencyP999Micros(latencyMicros.getValueAtQuantile(0.999))
+                .latencyMaxMicros(latencyMicros.getMax())
+                .statementsPerRequest(requests == 0 ? 0 : (double) statements.sum() / requests)
+                .statementsMax(maxStatements.get())
+                .build();
+    }
+}
@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records latency and JDBC statement count of every controller call matched by
+ * {@link ru.yandex.practicum.filmorate.logs.Logger#controllers()}. Statements issued after the call
+ * returns, e.g. by a {@code StreamingResponseBody}, run on another thread and are not attributed.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class MetricsAspect {
+
+    private final RequestMetrics metrics;
+    private final SqlStatementCounter statementCounter;
+
+    @Around("ru.yandex.practicum.filmorate.logs.Logger.controllers()")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        String endpoint = joinPoint.getSignature().getDeclaringType().getSimpleName() + "."
+                + joinPoint.getSignature().getName();
+        long statementsBefore = statementCounter.current();
+        long start = System.nanoTime();
+        boolean isError = true;
+        try {
+            Object result = joinPoint.proceed();
+            isError = result instanceof ResponseEntity && ((ResponseEntity<?>) result).getStatusCode().isError();
+            return result;
+        } finally {
+            metrics.record(endpoint, System.nanoTime() - start, statementCounter.current() - statementsBefore,
+                    isError);
+        }
+    }
+}
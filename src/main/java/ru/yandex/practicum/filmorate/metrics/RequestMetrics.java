@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.EndpointStats;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+@Component
+public class RequestMetrics {
+
+    private final long startNanos = System.nanoTime();
+    private final Map<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+
+    public void record(String endpoint, long durationNanos, long statementCount, boolean isError) {
+        endpoints.computeIfAbsent(endpoint, EndpointMetrics::new).record(durationNanos, statementCount, isError);
+    }
+
+    public List<EndpointStats> getEndpointStats() {
+        long uptimeNanos = System.nanoTime() - startNanos;
+        return endpoints.values().stream()
+                .map(metrics -> metrics.toStats(uptimeNanos))
+                .sorted(Comparator.comparing(EndpointStats::getEndpoint))
+                .collect(Collectors.toList());
+    }
+}
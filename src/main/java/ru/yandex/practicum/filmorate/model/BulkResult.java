@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class BulkResult<T> {
+
+    private int received;
+    private List<T> imported;
+    private List<BulkError> errors;
+    private long durationMillis;
+    private long recordsPerSecond;
+}
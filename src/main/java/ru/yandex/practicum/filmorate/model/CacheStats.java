@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class CacheStats {
+
+    private String cache;
+    private long hits;
+    private long misses;
+    private double hitRatio;
+}
@@ -0,0 +1,22 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class EndpointStats {
+
+    private String endpoint;
+    private long requests;
+    private long errors;
+    private double requestsPerSecond;
+    private double latencyMeanMicros;
+    private long latencyP50Micros;
+    private long latencyP90Micros;
+    private long latencyP99Micros;
+    private long latencyP999Micros;
+    private long latencyMaxMicros;
+    private double statementsPerRequest;
+    private long statementsMax;
+}
@@ -36,7 +36,7 @@ public class Film {
 
     @AssertTrue(message = "Release date should be later than 28.12.1895")
     private boolean isAfterCinemaBirthday() {
-        return releaseDate.isAfter(CINEMA_BIRTHDAY);
+        return releaseDate == null || releaseDate.isAfter(CINEMA_BIRTHDAY);
     }
 
 }
@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * A change of a film. {@code film} is set for created and updated films, {@code likesCount}
+ * for changed likes.
+ */
+@Data
+@Builder
+public class FilmEvent {
+
+    private Type type;
+
+    private long filmId;
+
+    private Film film;
+
+    private Long likesCount;
+
+    public enum Type {
+        CREATED, UPDATED, DELETED, LIKES, RESYNC
+    }
+}
@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * A directed friendship edge: {@code friendId} is in the friend list of {@code userId}.
+ */
+@Data
+@Builder
+public class Friendship {
+
+    private long userId;
+
+    private long friendId;
+}
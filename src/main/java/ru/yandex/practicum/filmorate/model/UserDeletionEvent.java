@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Published when a user is being deleted, before the user row is removed, so that listeners can
+ * still undo what refers to the user: the database drops those rows with the user.
+ */
+@Data
+@Builder
+public class UserDeletionEvent {
+
+    private long userId;
+}
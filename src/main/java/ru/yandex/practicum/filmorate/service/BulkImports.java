@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.model.BulkError;
+import ru.yandex.practicum.filmorate.model.BulkResult;
+
+import javax.validation.Validator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+final class BulkImports {
+
+    private BulkImports() {
+    }
+
+    static <T> List<String> validate(Validator validator, T item) {
+        return validator.validate(item).stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    static <T> BulkResult<T> result(int received, List<T> imported, List<BulkError> errors, long startNanos) {
+        long durationNanos = Math.max(System.nanoTime() - startNanos, 1);
+        return BulkResult.<T>builder()
+                .received(received)
+                .imported(imported)
+                .errors(errors)
+                .durationMillis(TimeUnit.NANOSECONDS.toMillis(durationNanos))
+                .recordsPerSecond(received * TimeUnit.SECONDS.toNanos(1) / durationNanos)
+                .build();
+    }
+}
@@ -0,0 +1,224 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.yandex.practicum.filmorate.model.FilmEvent;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-sent events of film changes published by {@link FilmService}. A connection holds no
+ * thread while idle: events are queued per subscriber and a small dispatcher pool sends them,
+ * draining one subscriber at a time.
+ * <p>
+ * Each subscriber queues at most {@code buffer-size} events. Likes only mark the film, and the
+ * count is read when the event is sent, so a burst of likes costs a slow subscriber one queued
+ * entry and one event. A subscriber that still falls behind loses its queue and gets a single
+ * {@code resync} event, after which it should reload the films.
+ */
+@Slf4j
+@Component
+public class FilmChangeFeed {
+
+    private static final String HEARTBEAT = "heartbeat";
+
+    private final FilmService filmService;
+    private final int maxSubscribers;
+    private final int bufferSize;
+    private final Duration heartbeatInterval;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ScheduledExecutorService dispatcher;
+
+    public FilmChangeFeed(FilmService filmService,
+                          @Value("${filmorate.feed.max-subscribers:1000}") int maxSubscribers,
+                          @Value("${filmorate.feed.buffer-size:256}") int bufferSize,
+                          @Value("${filmorate.feed.dispatcher-threads:2}") int dispatcherThreads,
+                          @Value("${filmorate.feed.heartbeat-interval:15s}") Duration heartbeatInterval) {
+        this.filmService = filmService;
+        this.maxSubscribers = maxSubscribers;
+        this.bufferSize = bufferSize;
+        this.heartbeatInterval = heartbeatInterval;
+        AtomicInteger threads = new AtomicInteger();
+        this.dispatcher = Executors.newScheduledThreadPool(dispatcherThreads, task -> {
+            Thread thread = new Thread(task, "film-feed-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Heartbeats let proxies keep idle connections open and reveal clients that are gone.
+     */
+    @PostConstruct
+    public void start() {
+        long intervalMillis = heartbeatInterval.toMillis();
+        dispatcher.scheduleAtFixedRate(() -> subscribers.forEach(subscriber -> {
+            subscriber.isHeartbeatDue = true;
+            schedule(subscriber);
+        }), intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        dispatcher.shutdownNow();
+        subscribers.forEach(subscriber -> {
+            unsubscribe(subscriber);
+            subscriber.emitter.complete();
+        });
+    }
+
+    /**
+     * A slot is reserved before the subscriber is added, so concurrent subscriptions never exceed
+     * the limit.
+     *
+     * @return the new subscriber's emitter, or empty when there are {@code max-subscribers} already
+     */
+    public Optional<SseEmitter> subscribe() {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            return Optional.empty();
+        }
+        SseEmitter emitter = new SseEmitter();
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> unsubscribe(subscriber));
+        subscribers.add(subscriber);
+        return Optional.of(emitter);
+    }
+
+    /**
+     * Runs on the thread that changed the film, so it only queues the event.
+     */
+    @EventListener
+    public void onFilmEvent(FilmEvent event) {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(event);
+            schedule(subscriber);
+        }
+    }
+
+    /**
+     * Frees the subscriber's slot once, whichever of completion, error or a failed send comes first.
+     */
+    private void unsubscribe(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            subscriberCount.decrementAndGet();
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.isScheduled.compareAndSet(false, true)) {
+            try {
+                dispatcher.execute(subscriber);
+            } catch (RejectedExecutionException e) {
+                subscriber.isScheduled.set(false);
+            }
+        }
+    }
+
+    private final class Subscriber implements Runnable {
+
+        private final SseEmitter emitter;
+        private final Deque<FilmEvent> events = new ArrayDeque<>();
+        private final Set<Long> likedFilms = new LinkedHashSet<>();
+        private final AtomicBoolean isScheduled = new AtomicBoolean();
+        private volatile boolean isHeartbeatDue;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private synchronized void offer(FilmEvent event) {
+            if (event.getType() == FilmEvent.Type.LIKES) {
+                likedFilms.add(event.getFilmId());
+            } else {
+                events.add(event);
+            }
+            if (events.size() + likedFilms.size() > bufferSize) {
+                events.clear();
+                likedFilms.clear();
+                events.add(FilmEvent.builder().type(FilmEvent.Type.RESYNC).build());
+            }
+        }
+
+        /**
+         * Film events go first, so a film is created before its likes are sent and the likes of
+         * a deleted film are dropped.
+         */
+        private synchronized FilmEvent poll() {
+            if (!events.isEmpty()) {
+                return events.poll();
+            }
+            Iterator<Long> iterator = likedFilms.iterator();
+            if (!iterator.hasNext()) {
+                return null;
+            }
+            long filmId = iterator.next();
+            iterator.remove();
+            return FilmEvent.builder().type(FilmEvent.Type.LIKES).filmId(filmId).build();
+        }
+
+        private synchronized boolean hasEvents() {
+            return !events.isEmpty() || !likedFilms.isEmpty();
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (FilmEvent event = poll(); event != null; event = poll()) {
+                    send(event);
+                }
+                if (isHeartbeatDue) {
+                    isHeartbeatDue = false;
+                    emitter.send(SseEmitter.event().comment(HEARTBEAT));
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client is gone or the emitter is complete; the container reports the error itself
+                log.debug("Dropping film feed subscriber: {}", e.getMessage());
+                unsubscribe(this);
+                return;
+            } finally {
+                isScheduled.set(false);
+            }
+            if (hasEvents()) {
+                schedule(this);
+            }
+        }
+
+        private void send(FilmEvent event) throws IOException {
+            if (event.getType() == FilmEvent.Type.LIKES) {
+                OptionalLong likesCount = filmService.findLikesCount(event.getFilmId());
+                if (likesCount.isEmpty()) {
+                    return;
+                }
+                event.setLikesCount(likesCount.getAsLong());
+            }
+            emitter.send(SseEmitter.event()
+                    .name(event.getType().name().toLowerCase(Locale.ROOT))
+                    .data(event));
+        }
+    }
+}
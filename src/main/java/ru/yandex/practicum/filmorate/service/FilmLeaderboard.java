@@ -0,0 +1,121 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.Value;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+
+/**
+ * Film ids ranked by likes, kept in a skip list ordered by likes descending and id ascending,
+ * the same order the storages use for the popular films query. Like changes move a single
+ * entry, so a top-N read walks the first N entries and storage is only asked for those films.
+ * Only the id and the likes count of a film are held, whatever the size of the catalogue.
+ * <p>
+ * A moved entry is inserted under its new rank before the old one is removed, so concurrent
+ * readers never miss a film; they skip the duplicate instead. A like can be stored between the
+ * creation of a film and its {@link #putCreated}, so likes of unknown films are kept aside until
+ * the film is added.
+ */
+public class FilmLeaderboard {
+
+    private static final Comparator<Entry> RANKING = Comparator.comparingLong(Entry::getLikes).reversed()
+            .thenComparingLong(Entry::getFilmId);
+
+    private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(RANKING);
+    private final ConcurrentMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Long> early = new ConcurrentHashMap<>();
+
+    public void rebuild(Consumer<Consumer<Film>> source) {
+        ranking.clear();
+        entries.clear();
+        early.clear();
+        source.accept(this::put);
+    }
+
+    /**
+     * Adds a new film with its stored likes count; a known film keeps the rank it already has.
+     */
+    public void put(Film film) {
+        entries.computeIfAbsent(film.getId(), id -> {
+            Entry entry = new Entry(id, film.getLikes_count());
+            ranking.add(entry);
+            return entry;
+        });
+    }
+
+    /**
+     * Adds a film that has just been created. It was stored without likes, so it starts with the
+     * likes that were stored before it was added.
+     */
+    public void putCreated(long filmId) {
+        entries.computeIfAbsent(filmId, id -> {
+            Long likes = early.remove(id);
+            Entry entry = new Entry(id, likes == null ? 0 : likes);
+            ranking.add(entry);
+            return entry;
+        });
+    }
+
+    public void remove(long filmId) {
+        entries.compute(filmId, (id, entry) -> {
+            early.remove(id);
+            if (entry != null) {
+                ranking.remove(entry);
+            }
+            return null;
+        });
+    }
+
+    public void addLikes(long filmId, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        entries.compute(filmId, (id, entry) -> {
+            if (entry == null) {
+                early.merge(id, delta, Long::sum);
+                return null;
+            }
+            Entry moved = new Entry(id, entry.getLikes() + delta);
+            ranking.add(moved);
+            ranking.remove(entry);
+            return moved;
+        });
+    }
+
+    public OptionalLong findLikes(long filmId) {
+        Entry entry = entries.get(filmId);
+        return entry == null ? OptionalLong.empty() : OptionalLong.of(entry.getLikes());
+    }
+
+    /**
+     * @return the ids of the {@code count} most liked films, most liked first
+     */
+    public List<Long> findTop(long count) {
+        List<Long> top = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        for (Entry entry : ranking) {
+            if (top.size() >= count) {
+                break;
+            }
+            if (seen.add(entry.getFilmId())) {
+                top.add(entry.getFilmId());
+            }
+        }
+        return top;
+    }
+
+    @Value
+    private static class Entry {
+        long filmId;
+        long likes;
+    }
+}
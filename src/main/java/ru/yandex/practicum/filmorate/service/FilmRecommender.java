@@ -0,0 +1,236 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.storage.LongIntMap;
+import ru.yandex.practicum.filmorate.storage.LongSet;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * Item-to-item collaborative filtering over likes. For every pair of films the index counts the
+ * users who liked both and updates the counts on each like and unlike, so recommending only sums
+ * the co-occurrence rows of the films the user liked: films liked together with many of them
+ * rank first.
+ * <p>
+ * A user adds a pair for every two films they liked, which is quadratic in their likes, so each
+ * user only contributes the pairs among a sample of at most {@code sampleSize} of their likes:
+ * the films with the lowest hash of film and user id. The sample depends only on the set of likes,
+ * so an unlike exactly reverses its like and a rebuild gives the same counts. The same sample seeds
+ * the user's own recommendations, which bounds their cost for users with hundreds of likes; every
+ * liked film is still excluded from the result.
+ * <p>
+ * The likes and the sample of a user change under a lock striped by user, so likes of different
+ * users do not wait for each other. The likers of a film and the co-occurrence rows they share
+ * are changed per key with {@link ConcurrentMap#compute}, and a row is also guarded by its own
+ * monitor, which a recommendation holds only while it reads that row.
+ */
+public class FilmRecommender {
+
+    private static final Comparator<long[]> RANKING = Comparator.<long[]>comparingLong(entry -> entry[1])
+            .thenComparing(Comparator.<long[]>comparingLong(entry -> entry[0]).reversed());
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final int sampleSize;
+    private final Object[] userLocks = new Object[LOCK_STRIPES];
+    private final ConcurrentMap<Long, UserLikes> likesByUser = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, LongSet> likersByFilm = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, LongIntMap> coLikes = new ConcurrentHashMap<>();
+
+    public FilmRecommender(int sampleSize) {
+        this.sampleSize = sampleSize;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            userLocks[i] = new Object();
+        }
+    }
+
+    public void rebuild(Consumer<Consumer<Like>> source) {
+        likesByUser.clear();
+        likersByFilm.clear();
+        coLikes.clear();
+        source.accept(like -> addLike(like.getFilmId(), like.getUserId()));
+    }
+
+    /**
+     * @return whether the like is new
+     */
+    public boolean addLike(long filmId, long userId) {
+        synchronized (lockOf(userId)) {
+            UserLikes user = likesByUser.computeIfAbsent(userId, UserLikes::new);
+            if (!user.likes.add(filmId)) {
+                return false;
+            }
+            likersByFilm.compute(filmId, (id, likers) -> {
+                LongSet updated = likers == null ? new LongSet() : likers;
+                updated.add(userId);
+                return updated;
+            });
+            if (user.sample.size() < sampleSize) {
+                addToSample(user, filmId);
+                return true;
+            }
+            long last = user.lastOfSample();
+            if (last != 0 && user.compare(filmId, last) < 0) {
+                removeFromSample(user, last);
+                addToSample(user, filmId);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * @return whether the like existed
+     */
+    public boolean removeLike(long filmId, long userId) {
+        synchronized (lockOf(userId)) {
+            return unlike(filmId, userId);
+        }
+    }
+
+    public void removeFilm(long filmId) {
+        LongSet likers = likersByFilm.get(filmId);
+        if (likers != null) {
+            likers.forEach(userId -> removeLike(filmId, userId));
+        }
+    }
+
+    /**
+     * @return ids of the films the user liked, in ascending order
+     */
+    public long[] findLikes(long userId) {
+        UserLikes user = likesByUser.get(userId);
+        return user == null ? new long[0] : user.likes.toArray();
+    }
+
+    /**
+     * @return ids of films the user has not liked, most often liked together with the user's
+     * films first and by ascending id among equals
+     */
+    public List<Long> recommend(long userId, int limit) {
+        UserLikes user = likesByUser.get(userId);
+        if (user == null || limit <= 0) {
+            return new ArrayList<>();
+        }
+        LongIntMap scores = new LongIntMap();
+        user.sample.forEach(filmId -> {
+            LongIntMap row = coLikes.get(filmId);
+            if (row != null) {
+                synchronized (row) {
+                    row.forEach(scores::add);
+                }
+            }
+        });
+        PriorityQueue<long[]> top = new PriorityQueue<>(limit + 1, RANKING);
+        scores.forEach((filmId, score) -> {
+            long[] candidate = {filmId, score};
+            if ((top.size() < limit || RANKING.compare(candidate, top.peek()) > 0)
+                    && !user.likes.contains(filmId)) {
+                top.add(candidate);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+        });
+        List<Long> ids = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            ids.add(0, top.poll()[0]);
+        }
+        return ids;
+    }
+
+    private boolean unlike(long filmId, long userId) {
+        UserLikes user = likesByUser.get(userId);
+        if (user == null || !user.likes.remove(filmId)) {
+            return false;
+        }
+        likersByFilm.computeIfPresent(filmId, (id, likers) ->
+                likers.remove(userId) && likers.isEmpty() ? null : likers);
+        if (user.sample.contains(filmId)) {
+            removeFromSample(user, filmId);
+            long next = user.firstOutsideSample();
+            if (next != 0) {
+                addToSample(user, next);
+            }
+        }
+        if (user.likes.isEmpty()) {
+            likesByUser.remove(userId);
+        }
+        return true;
+    }
+
+    private void addToSample(UserLikes user, long filmId) {
+        user.sample.forEach(other -> addPair(filmId, other, 1));
+        user.sample.add(filmId);
+    }
+
+    private void removeFromSample(UserLikes user, long filmId) {
+        user.sample.remove(filmId);
+        user.sample.forEach(other -> addPair(filmId, other, -1));
+    }
+
+    private void addPair(long filmId, long otherId, int delta) {
+        addToRow(filmId, otherId, delta);
+        addToRow(otherId, filmId, delta);
+    }
+
+    private void addToRow(long filmId, long otherId, int delta) {
+        coLikes.compute(filmId, (id, row) -> {
+            LongIntMap updated = row == null ? new LongIntMap() : row;
+            synchronized (updated) {
+                updated.add(otherId, delta);
+                return updated.isEmpty() ? null : updated;
+            }
+        });
+    }
+
+    private Object lockOf(long userId) {
+        return userLocks[Math.floorMod(Long.hashCode(userId), LOCK_STRIPES)];
+    }
+
+    private static class UserLikes {
+
+        private final long userId;
+        private final LongSet likes = new LongSet();
+        private final LongSet sample = new LongSet();
+
+        private UserLikes(long userId) {
+            this.userId = userId;
+        }
+
+        private int compare(long filmId, long otherId) {
+            int byHash = Long.compare(hash(filmId), hash(otherId));
+            return byHash != 0 ? byHash : Long.compare(filmId, otherId);
+        }
+
+        private long hash(long filmId) {
+            long hash = (filmId ^ userId * 0x9E3779B97F4A7C15L) * 0xC2B2AE3D27D4EB4FL;
+            return hash ^ (hash >>> 29);
+        }
+
+        private long lastOfSample() {
+            long[] last = {0};
+            sample.forEach(filmId -> {
+                if (last[0] == 0 || compare(filmId, last[0]) > 0) {
+                    last[0] = filmId;
+                }
+            });
+            return last[0];
+        }
+
+        private long firstOutsideSample() {
+            long[] first = {0};
+            likes.forEach(filmId -> {
+                if (!sample.contains(filmId) && (first[0] == 0 || compare(filmId, first[0]) < 0)) {
+                    first[0] = filmId;
+                }
+            });
+            return first[0];
+        }
+    }
+}
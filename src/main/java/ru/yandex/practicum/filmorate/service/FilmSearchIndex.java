@@ -0,0 +1,239 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.LongSet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Inverted index of films: postings of film ids per name and description token, genre, rating
+ * and release year. A search intersects the postings of its criteria starting from the smallest
+ * one and keeps only the {@code limit} lowest matching ids, so its cost depends on the rarest
+ * criterion rather than on the catalogue size.
+ * <p>
+ * Films are indexed by the fields they had when put, so removing one needs no storage access.
+ * A read-write lock keeps a film from being seen half re-indexed.
+ */
+public class FilmSearchIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<Long, Document> documents = new TreeMap<>();
+    private final Map<String, LongSet> tokens = new HashMap<>();
+    private final Map<Integer, LongSet> genres = new HashMap<>();
+    private final Map<Integer, LongSet> ratings = new HashMap<>();
+    private final Map<Integer, LongSet> years = new HashMap<>();
+
+    /**
+     * Splits text into lower-case runs of letters and digits, so "Star-Wars" matches "star wars".
+     */
+    public static Set<String> tokenize(String text) {
+        Set<String> result = new LinkedHashSet<>();
+        if (text != null) {
+            for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+                if (!token.isEmpty()) {
+                    result.add(token);
+                }
+            }
+        }
+        return result;
+    }
+
+    public void rebuild(Consumer<Consumer<Film>> source) {
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            tokens.clear();
+            genres.clear();
+            ratings.clear();
+            years.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        source.accept(this::put);
+    }
+
+    /**
+     * Indexes a new film or re-indexes a known one under its current fields.
+     */
+    public void put(Film film) {
+        Document document = Document.of(film);
+        lock.writeLock().lock();
+        try {
+            Document previous = documents.put(film.getId(), document);
+            if (previous != null) {
+                unindex(film.getId(), previous);
+            }
+            for (String token : document.tokens()) {
+                tokens.computeIfAbsent(token, key -> new LongSet()).add(film.getId());
+            }
+            for (int genreId : document.genreIds) {
+                genres.computeIfAbsent(genreId, key -> new LongSet()).add(film.getId());
+            }
+            if (document.mpaId != 0) {
+                ratings.computeIfAbsent(document.mpaId, key -> new LongSet()).add(film.getId());
+            }
+            if (document.year != 0) {
+                years.computeIfAbsent(document.year, key -> new LongSet()).add(film.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long filmId) {
+        lock.writeLock().lock();
+        try {
+            Document document = documents.remove(filmId);
+            if (document != null) {
+                unindex(filmId, document);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds films matching every given criterion: all tokens of the query and the genre, rating
+     * and release year when they are not null. Without criteria every film matches.
+     *
+     * @return up to {@code limit} ids greater than {@code after}, in ascending order
+     */
+    public List<Long> search(String query, Integer genreId, Integer mpaId, Integer year, long after, int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            List<LongSet> postings = new ArrayList<>();
+            for (String token : tokenize(query)) {
+                postings.add(tokens.get(token));
+            }
+            if (genreId != null) {
+                postings.add(genres.get(genreId));
+            }
+            if (mpaId != null) {
+                postings.add(ratings.get(mpaId));
+            }
+            if (year != null) {
+                postings.add(years.get(year));
+            }
+            if (postings.isEmpty()) {
+                List<Long> ids = new ArrayList<>();
+                for (Long id : documents.tailMap(after, false).keySet()) {
+                    if (ids.size() >= limit) {
+                        break;
+                    }
+                    ids.add(id);
+                }
+                return ids;
+            }
+            if (postings.contains(null)) {
+                return new ArrayList<>();
+            }
+            return intersect(postings, after, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static List<Long> intersect(List<LongSet> postings, long after, int limit) {
+        postings.sort(Comparator.comparingInt(LongSet::size));
+        LongSet smallest = postings.get(0);
+        List<LongSet> others = postings.subList(1, postings.size());
+        PriorityQueue<Long> lowest = new PriorityQueue<>(limit + 1, Collections.reverseOrder());
+        smallest.forEach(id -> {
+            if (id <= after || (lowest.size() >= limit && id >= lowest.peek())) {
+                return;
+            }
+            for (LongSet posting : others) {
+                if (!posting.contains(id)) {
+                    return;
+                }
+            }
+            lowest.add(id);
+            if (lowest.size() > limit) {
+                lowest.poll();
+            }
+        });
+        List<Long> ids = new ArrayList<>(lowest);
+        Collections.sort(ids);
+        return ids;
+    }
+
+    private void unindex(long filmId, Document document) {
+        for (String token : document.tokens()) {
+            removePosting(tokens, token, filmId);
+        }
+        for (int genreId : document.genreIds) {
+            removePosting(genres, genreId, filmId);
+        }
+        removePosting(ratings, document.mpaId, filmId);
+        removePosting(years, document.year, filmId);
+    }
+
+    private static <K> void removePosting(Map<K, LongSet> postings, K key, long filmId) {
+        LongSet posting = postings.get(key);
+        if (posting != null && posting.remove(filmId) && posting.isEmpty()) {
+            postings.remove(key);
+        }
+    }
+
+    /**
+     * Indexed fields of a film. The text is kept as the film's own strings and tokenized again
+     * on removal, which is cheaper in memory than holding a token array per film.
+     */
+    private static final class Document {
+
+        private final String name;
+        private final String description;
+        private final int[] genreIds;
+        private final int mpaId;
+        private final int year;
+
+        private Document(String name, String description, int[] genreIds, int mpaId, int year) {
+            this.name = name;
+            this.description = description;
+            this.genreIds = genreIds;
+            this.mpaId = mpaId;
+            this.year = year;
+        }
+
+        static Document of(Film film) {
+            int[] genreIds = film.getGenres() == null ? new int[0]
+                    : film.getGenres().stream().mapToInt(Genre::getId).distinct().toArray();
+            return new Document(film.getName(), film.getDescription(), genreIds,
+                    film.getMpa() == null ? 0 : film.getMpa().getId(),
+                    film.getReleaseDate() == null ? 0 : film.getReleaseDate().getYear());
+        }
+
+        Set<String> tokens() {
+            Set<String> result = tokenize(name);
+            result.addAll(tokenize(description));
+            return result;
+        }
+    }
+}
@@ -1,74 +1,371 @@
 package ru.yandex.practicum.filmorate.service;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.model.BulkError;
+import ru.yandex.practicum.filmorate.model.BulkResult;
 import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.FilmEvent;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.UserDeletionEvent;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 
+import javax.annotation.PostConstruct;
+import javax.validation.Validator;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class FilmService {
 
+    public static final int MAX_PAGE_SIZE = 1000;
+
     private final FilmStorage storage;
     private final UserService userService;
+    private final GenreService genreService;
+    private final MPAService mpaService;
+    private final Validator validator;
+    private final FilmLeaderboard leaderboard = new FilmLeaderboard();
+    private final FilmSearchIndex searchIndex = new FilmSearchIndex();
+    private final FilmRecommender recommender;
+    private final LikeWriteBuffer likeBuffer;
+    private final ApplicationEventPublisher events;
+    private final VersionRegistry versions = new VersionRegistry();
 
     @Autowired
-    public FilmService(@Qualifier("filmDbStorage") FilmStorage filmStorage, UserService userService) { // inMemoryFilmStorage
+    public FilmService(@Qualifier("cachedFilmStorage") FilmStorage filmStorage, UserService userService, // inMemoryFilmStorage
+                       GenreService genreService, MPAService mpaService, Validator validator,
+                       LikeWriteBuffer likeBuffer, ApplicationEventPublisher events,
+                       @Value("${filmorate.recommendations.sample-size:50}") int recommendationSampleSize) {
         this.storage = filmStorage;
         this.userService = userService;
+        this.genreService = genreService;
+        this.mpaService = mpaService;
+        this.validator = validator;
+        this.likeBuffer = likeBuffer;
+        this.events = events;
+        this.recommender = new FilmRecommender(recommendationSampleSize);
+    }
+
+    /**
+     * likes_count is updated in the same transaction as films_likes, so the stored films are
+     * enough to restore the ranking. Both indexes are filled from a single pass over the films.
+     */
+    @PostConstruct
+    public void rebuildIndexes() {
+        long start = System.nanoTime();
+        leaderboard.rebuild(action -> searchIndex.rebuild(indexAction -> storage.streamAll(film -> {
+            action.accept(film);
+            indexAction.accept(film);
+        })));
+        log.info("Popularity leaderboard and search index rebuilt in {} ms",
+                (System.nanoTime() - start) / 1_000_000);
+        start = System.nanoTime();
+        recommender.rebuild(storage::streamLikes);
+        log.info("Film recommendations rebuilt in {} ms", (System.nanoTime() - start) / 1_000_000);
     }
 
     public Film createFilm(Film film) {
-        return storage.create(film);
+        Film created = storage.create(film);
+        leaderboard.putCreated(created.getId());
+        searchIndex.put(created);
+        publish(FilmEvent.Type.CREATED, created.getId(), created);
+        return created;
+    }
+
+    public BulkResult<Film> createFilms(List<Film> films) {
+        long start = System.nanoTime();
+        List<Film> validFilms = new ArrayList<>();
+        List<BulkError> errors = new ArrayList<>();
+        for (int i = 0; i < films.size(); i++) {
+            Film film = films.get(i);
+            List<String> reasons = new ArrayList<>(BulkImports.validate(validator, film));
+            if (film.getMpa() == null || mpaService.findRatingById(film.getMpa().getId()).isEmpty()) {
+                reasons.add("mpa: Rating should be valid");
+            }
+            if (film.getGenres() != null) {
+                for (Genre genre : film.getGenres()) {
+                    if (genreService.findGenreById(genre.getId()).isEmpty()) {
+                        reasons.add("genres: Genre " + genre.getId() + " should be valid");
+                    }
+                }
+            }
+            if (reasons.isEmpty()) {
+                validFilms.add(film);
+            } else {
+                errors.add(BulkError.builder().index(i).reasons(reasons).build());
+            }
+        }
+        List<Film> imported = validFilms.isEmpty() ? new ArrayList<>() : storage.createAll(validFilms);
+        imported.forEach(created -> leaderboard.putCreated(created.getId()));
+        imported.forEach(searchIndex::put);
+        imported.forEach(film -> publish(FilmEvent.Type.CREATED, film.getId(), film));
+        BulkResult<Film> result = BulkImports.result(films.size(), imported, errors, start);
+        log.info("Bulk import of films: {} received, {} imported in {} ms ({} records/s)", result.getReceived(),
+                imported.size(), result.getDurationMillis(), result.getRecordsPerSecond());
+        return result;
     }
 
     public Optional<Film> updateFilm(Film film) {
-        return storage.update(film);
+        Optional<Film> updated = storage.update(film);
+        updated.ifPresent(value -> {
+            searchIndex.put(value);
+            versions.bump(value.getId());
+            publish(FilmEvent.Type.UPDATED, value.getId(), value);
+        });
+        return updated;
     }
 
     public List<Film> findAllFilms() {
-        return storage.findAll();
+        return withPendingLikes(storage.findAll());
+    }
+
+    public List<Film> findFilmsPage(long after, int limit) {
+        return withPendingLikes(storage.findAll(Math.max(after, 0), pageSize(limit)));
+    }
+
+    /**
+     * The number of entities a page requested with {@code limit} holds at most.
+     */
+    public static int pageSize(int limit) {
+        return Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+    }
+
+    /**
+     * The index resolves the matching ids, so storage is only asked for the page of films
+     * that is returned.
+     */
+    public List<Film> searchFilms(String query, Integer genreId, Integer mpaId, Integer year, long after,
+                                  int limit) {
+        List<Long> ids = searchIndex.search(query, genreId, mpaId, year, Math.max(after, 0), pageSize(limit));
+        return withPendingLikes(storage.findAllById(ids));
+    }
+
+    public void exportFilms(Consumer<Film> action) {
+        storage.streamAll(film -> action.accept(withPendingLikes(film)));
     }
 
     public Optional<Film> findFilmById(long id) {
-        return storage.findById(id);
+        return storage.findById(id).map(this::withPendingLikes);
+    }
+
+    /**
+     * Covers the film row, its likes count and the genre and rating names it is hydrated with.
+     */
+    public String getFilmETag(long id) {
+        return VersionRegistry.eTag("film", id, versions.get(id), genreService.getVersion(),
+                mpaService.getVersion());
     }
 
     public boolean deleteFilmById(long id) {
-        return storage.deleteById(id);
+        boolean isDeleted = storage.deleteById(id);
+        if (isDeleted) {
+            leaderboard.remove(id);
+            searchIndex.remove(id);
+            recommender.removeFilm(id);
+            versions.bump(id);
+            publish(FilmEvent.Type.DELETED, id, null);
+        }
+        return isDeleted;
     }
 
-    public boolean likeFilm(long id, long userId) {
-        Optional<User> optUser = userService.findUserById(userId);
-        Optional<Film> optFilm = storage.findById(id);
+    public BulkResult<Like> addLikes(List<Like> likes) {
+        long start = System.nanoTime();
+        List<Like> validLikes = new ArrayList<>();
+        List<Integer> validIndexes = new ArrayList<>();
+        List<BulkError> errors = new ArrayList<>();
+        for (int i = 0; i < likes.size(); i++) {
+            List<String> reasons = BulkImports.validate(validator, likes.get(i));
+            if (reasons.isEmpty()) {
+                validLikes.add(likes.get(i));
+                validIndexes.add(i);
+            } else {
+                errors.add(BulkError.builder().index(i).reasons(reasons).build());
+            }
+        }
+        List<Like> imported = new ArrayList<>();
+        if (!validLikes.isEmpty()) {
+            // The import checks existing likes in the database, so queued ones must be there first
+            if (likeBuffer.isEnabled()) {
+                likeBuffer.flush();
+            }
+            List<Boolean> added = storage.addLikes(validLikes);
+            for (int i = 0; i < validLikes.size(); i++) {
+                if (added.get(i)) {
+                    imported.add(validLikes.get(i));
+                    leaderboard.addLikes(validLikes.get(i).getFilmId(), 1);
+                    recommender.addLike(validLikes.get(i).getFilmId(), validLikes.get(i).getUserId());
+                    versions.bump(validLikes.get(i).getFilmId());
+                    publish(FilmEvent.Type.LIKES, validLikes.get(i).getFilmId(), null);
+                } else {
+                    errors.add(BulkError.builder()
+                            .index(validIndexes.get(i))
+                            .reasons(List.of("Film or user not found, or the like already exists"))
+                            .build());
+                }
+            }
+        }
+        errors.sort(Comparator.comparingInt(BulkError::getIndex));
+        BulkResult<Like> result = BulkImports.result(likes.size(), imported, errors, start);
+        log.info("Bulk import of likes: {} received, {} imported in {} ms ({} records/s)", result.getReceived(),
+                imported.size(), result.getDurationMillis(), result.getRecordsPerSecond());
+        return result;
+    }
 
-        if (optUser.isPresent() && optFilm.isPresent()) {
-            return storage.addLikeToFilm(id, userId);
+    /**
+     * With write-behind likes the recommender, which holds every like, tells whether the like is
+     * new, and the database is written later by {@link LikeWriteBuffer}.
+     */
+    public boolean likeFilm(long id, long userId) {
+        if (!userService.existsById(userId) || !storage.existsById(id)) {
+            return false;
+        }
+        if (likeBuffer.isEnabled()) {
+            Like like = Like.builder().filmId(id).userId(userId).build();
+            if (!likeBuffer.record(like, true, () -> recommender.addLike(id, userId))) {
+                return false;
+            }
+        } else if (storage.addLikeToFilm(id, userId)) {
+            recommender.addLike(id, userId);
+        } else {
+            return false;
         }
-        return false;
+        leaderboard.addLikes(id, 1);
+        versions.bump(id);
+        publish(FilmEvent.Type.LIKES, id, null);
+        return true;
     }
 
+    /**
+     * A like of a missing film or user cannot exist, so the delete itself is the existence check.
+     * Ids are never below one, and the indexes reject them, so they are turned away first.
+     */
     public boolean removeLikeFromFilm(long id, long userId) {
-        Optional<User> optUser = userService.findUserById(userId);
-        Optional<Film> optFilm = storage.findById(id);
+        if (id <= 0 || userId <= 0) {
+            return false;
+        }
+        if (likeBuffer.isEnabled()) {
+            Like like = Like.builder().filmId(id).userId(userId).build();
+            if (!likeBuffer.record(like, false, () -> recommender.removeLike(id, userId))) {
+                return false;
+            }
+        } else if (storage.removeLikeFromFilm(id, userId)) {
+            recommender.removeLike(id, userId);
+        } else {
+            return false;
+        }
+        leaderboard.addLikes(id, -1);
+        versions.bump(id);
+        publish(FilmEvent.Type.LIKES, id, null);
+        return true;
+    }
 
-        if (optUser.isPresent() && optFilm.isPresent() && optFilm.get().getLikes_count() > 0) {
-            return storage.removeLikeFromFilm(id, userId);
+    /**
+     * Unlikes the films of a user being deleted, so the stored counts, the caches and the indexes
+     * drop the likes before the database removes them with the user.
+     */
+    @EventListener
+    public void onUserDeletion(UserDeletionEvent event) {
+        long userId = event.getUserId();
+        for (long filmId : recommender.findLikes(userId)) {
+            removeLikeFromFilm(filmId, userId);
         }
-        return false;
     }
 
+    /**
+     * Films liked by users whose likes overlap with the user's, best matches first.
+     */
+    public List<Film> getRecommendations(long userId, int limit) {
+        return findAllInOrder(recommender.recommend(userId, Math.min(Math.max(limit, 1), MAX_PAGE_SIZE)),
+                this::withPendingLikes);
+    }
+
+    /**
+     * The current likes count, including likes still queued for the database.
+     */
+    public OptionalLong findLikesCount(long id) {
+        return leaderboard.findLikes(id);
+    }
+
+    /**
+     * The leaderboard ranks the films, so storage is only asked for the films on the page, and
+     * they are shown with their leaderboard counts. At most {@value #MAX_PAGE_SIZE} films are
+     * returned, as they are loaded with one query.
+     */
     public List<Film> findTopLikableFilms(long count) {
-        return storage.findAll()
-                .stream()
-                .sorted(Comparator.comparing(Film::getLikes_count).reversed())
-                .limit(count)
+        if (count <= 0) {
+            return new ArrayList<>();
+        }
+        return findAllInOrder(leaderboard.findTop(Math.min(count, MAX_PAGE_SIZE)), film -> withLikes(film,
+                leaderboard.findLikes(film.getId()).orElse(film.getLikes_count())));
+    }
+
+    /**
+     * Loads the films with a single storage call and returns them in the order of {@code ids}.
+     */
+    private List<Film> findAllInOrder(List<Long> ids, UnaryOperator<Film> hydrator) {
+        Map<Long, Film> films = storage.findAllById(ids).stream()
+                .collect(Collectors.toMap(Film::getId, Function.identity()));
+        return ids.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .map(hydrator)
                 .collect(Collectors.toList());
     }
+
+    /**
+     * A copy, since an in-memory storage hands out the films it stores.
+     */
+    private static Film withLikes(Film film, long likes) {
+        return Film.builder()
+                .id(film.getId())
+                .name(film.getName())
+                .description(film.getDescription())
+                .duration(film.getDuration())
+                .mpa(film.getMpa())
+                .genres(film.getGenres())
+                .releaseDate(film.getReleaseDate())
+                .likes_count(likes)
+                .build();
+    }
+
+    /**
+     * Stored likes counts lag behind queued likes, while the leaderboard is updated on every like,
+     * so with write-behind likes its count is the one a client has to see.
+     */
+    private Film withPendingLikes(Film film) {
+        if (likeBuffer.isEnabled()) {
+            leaderboard.findLikes(film.getId()).ifPresent(film::setLikes_count);
+        }
+        return film;
+    }
+
+    private List<Film> withPendingLikes(List<Film> films) {
+        films.forEach(this::withPendingLikes);
+        return films;
+    }
+
+    /**
+     * Like events carry no count: a subscriber reads it when the event is sent, so a burst of
+     * likes reaches it as the latest count only.
+     */
+    private void publish(FilmEvent.Type type, long filmId, Film film) {
+        events.publishEvent(FilmEvent.builder().type(type).filmId(filmId).film(film).build());
+    }
 }
\ No newline at end of file
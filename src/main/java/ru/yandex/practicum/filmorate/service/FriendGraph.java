@@ -0,0 +1,138 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.storage.LongIntMap;
+import ru.yandex.practicum.filmorate.storage.LongSet;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Friend lists kept in memory as adjacency sets, so friend-of-friend suggestions walk two hops
+ * without a query per friend. Edges are directed as in the friendship table; the reverse sets
+ * only let a deleted user be unlinked from the lists that contain them.
+ * <p>
+ * A suggestion is a user in the friend list of the user's friends, ranked by how many of those
+ * friends list them. The walk reads at most {@code maxVisitedEdges} second-hop edges: each friend
+ * contributes an equal share of their list, so a few friends with thousands of friends cannot
+ * dominate the cost. Shares are taken in hash table order, which is a fixed sample of the list.
+ */
+public class FriendGraph {
+
+    private static final Comparator<long[]> RANKING = Comparator.<long[]>comparingLong(entry -> entry[1])
+            .thenComparing(Comparator.<long[]>comparingLong(entry -> entry[0]).reversed());
+
+    private final int maxVisitedEdges;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, LongSet> friends = new HashMap<>();
+    private final Map<Long, LongSet> followers = new HashMap<>();
+
+    public FriendGraph(int maxVisitedEdges) {
+        this.maxVisitedEdges = maxVisitedEdges;
+    }
+
+    public void rebuild(Consumer<Consumer<Friendship>> source) {
+        lock.writeLock().lock();
+        try {
+            friends.clear();
+            followers.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        source.accept(friendship -> addFriend(friendship.getUserId(), friendship.getFriendId()));
+    }
+
+    public void addFriend(long userId, long friendId) {
+        lock.writeLock().lock();
+        try {
+            if (friends.computeIfAbsent(userId, id -> new LongSet()).add(friendId)) {
+                followers.computeIfAbsent(friendId, id -> new LongSet()).add(userId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeFriend(long userId, long friendId) {
+        lock.writeLock().lock();
+        try {
+            unlink(friends, userId, friendId);
+            unlink(followers, friendId, userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeUser(long userId) {
+        lock.writeLock().lock();
+        try {
+            LongSet userFriends = friends.remove(userId);
+            if (userFriends != null) {
+                userFriends.forEach(friendId -> unlink(followers, friendId, userId));
+            }
+            LongSet userFollowers = followers.remove(userId);
+            if (userFollowers != null) {
+                userFollowers.forEach(followerId -> unlink(friends, followerId, userId));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return ids of users who are neither the user nor their friends, with the most mutual
+     * friends first and by ascending id among equals
+     */
+    public List<Long> suggest(long userId, int limit) {
+        lock.readLock().lock();
+        try {
+            LongSet userFriends = friends.get(userId);
+            if (userFriends == null || limit <= 0) {
+                return new ArrayList<>();
+            }
+            long[] hops = userFriends.sample(maxVisitedEdges);
+            int share = Math.max(1, maxVisitedEdges / hops.length);
+            LongIntMap mutualCounts = new LongIntMap();
+            for (long friendId : hops) {
+                LongSet friendFriends = friends.get(friendId);
+                if (friendFriends != null) {
+                    for (long candidateId : friendFriends.sample(share)) {
+                        mutualCounts.add(candidateId, 1);
+                    }
+                }
+            }
+            PriorityQueue<long[]> top = new PriorityQueue<>(limit + 1, RANKING);
+            mutualCounts.forEach((candidateId, count) -> {
+                long[] candidate = {candidateId, count};
+                if ((top.size() < limit || RANKING.compare(candidate, top.peek()) > 0)
+                        && candidateId != userId && !userFriends.contains(candidateId)) {
+                    top.add(candidate);
+                    if (top.size() > limit) {
+                        top.poll();
+                    }
+                }
+            });
+            List<Long> ids = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                ids.add(0, top.poll()[0]);
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void unlink(Map<Long, LongSet> adjacency, long userId, long otherId) {
+        LongSet others = adjacency.get(userId);
+        if (others != null && others.remove(otherId) && others.isEmpty()) {
+            adjacency.remove(userId);
+        }
+    }
+}
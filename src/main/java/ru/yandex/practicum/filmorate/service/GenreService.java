@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.service;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.CachedReferenceStorage;
 import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
 
 import java.util.List;
@@ -13,7 +14,7 @@ public class GenreService {
 
     private final GenreStorage storage;
 
-    public GenreService(@Qualifier("genreDbStorage") GenreStorage storage) {
+    public GenreService(@Qualifier("cachedGenreStorage") GenreStorage storage) {
         this.storage = storage;
     }
 
@@ -24,4 +25,19 @@ public class GenreService {
     public Optional<Genre> findGenreById(int id) {
         return storage.findById(id);
     }
+
+    public String getGenresETag() {
+        return VersionRegistry.eTag("genres", getVersion());
+    }
+
+    public String getGenreETag(int id) {
+        return VersionRegistry.eTag("genre", id, getVersion());
+    }
+
+    /**
+     * Reference data only changes through the cache, which counts its invalidations.
+     */
+    long getVersion() {
+        return storage instanceof CachedReferenceStorage ? ((CachedReferenceStorage<?>) storage).getVersion() : 0;
+    }
 }
@@ -0,0 +1,221 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Write-behind queue for likes. When enabled, likes and unlikes are only applied to the in-memory
+ * indexes, which then answer every read, and queued here; the queue is written to films_likes and
+ * likes_count in JDBC batches every {@code flush-interval}, or by the request that fills it to
+ * {@code max-pending}. A crash loses at most the likes of one interval, and of no more than
+ * {@code max-pending} pairs of film and user.
+ * <p>
+ * Changes that fail to be written are queued again, so the queue is bounded on entry instead: a
+ * change that finds {@code max-pending} pairs queued or being written writes them first, and is
+ * refused with 503 Service Unavailable, before it reaches the indexes, if that does not make room,
+ * as while the database is down. The queue thus never exceeds {@code max-pending} by more than one
+ * change per request in progress.
+ * <p>
+ * A film and user pair holds at most one pending change. Changes to a pair alternate, since each
+ * one is recorded only if it changed the indexes, so a like and an unlike of the same pair cancel
+ * out and never reach the database. Changes are applied and queued under a lock striped by pair,
+ * so likes of different pairs do not wait for each other here; the recommender they update
+ * locks by user stripe in the same way.
+ */
+@Slf4j
+@Component
+public class LikeWriteBuffer {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final FilmStorage storage;
+    private final boolean enabled;
+    private final Duration flushInterval;
+    private final int maxPending;
+    private final Object flushLock = new Object();
+    private final Object[] pairLocks = new Object[LOCK_STRIPES];
+    private Map<Like, Boolean> pending = new HashMap<>();
+    private int writing;
+    private ScheduledExecutorService flusher;
+
+    public LikeWriteBuffer(@Qualifier("cachedFilmStorage") FilmStorage storage,
+                           @Value("${filmorate.likes.write-behind.enabled:false}") boolean enabled,
+                           @Value("${filmorate.likes.write-behind.flush-interval:1s}") Duration flushInterval,
+                           @Value("${filmorate.likes.write-behind.max-pending:10000}") int maxPending) {
+        this.storage = storage;
+        this.enabled = enabled;
+        this.flushInterval = flushInterval;
+        this.maxPending = maxPending;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            pairLocks[i] = new Object();
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "like-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info("Write-behind likes enabled: flush every {} ms or at {} pending", intervalMillis, maxPending);
+    }
+
+    /**
+     * Stops the timer and writes what is left, so a graceful shutdown loses nothing.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        flusher.shutdown();
+        flusher.awaitTermination(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+        flush();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Runs {@code change}, which applies a like ({@code isAdded}) or an unlike to the indexes and
+     * tells whether it changed them, and queues the change if it did. Both happen under the lock
+     * of the pair's stripe, so changes of one pair are queued in the order they were applied, while
+     * the buffer's own lock is only held to update the queue.
+     *
+     * @return the result of {@code change}
+     * @throws ResponseStatusException with 503 Service Unavailable when the queue is full and
+     *                                 cannot be written
+     */
+    public boolean record(Like like, boolean isAdded, BooleanSupplier change) {
+        if (getQueuedCount() >= maxPending) {
+            flushIfFull();
+            if (getQueuedCount() >= maxPending) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "Too many likes are waiting to be stored");
+            }
+        }
+        int size;
+        synchronized (pairLocks[Math.floorMod(like.hashCode(), LOCK_STRIPES)]) {
+            if (!change.getAsBoolean()) {
+                return false;
+            }
+            synchronized (this) {
+                merge(like, isAdded);
+                size = pending.size();
+            }
+        }
+        if (size >= maxPending) {
+            flushIfFull();
+        }
+        return true;
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Writes the pending changes. Flushes run one at a time, so a pair's changes reach the
+     * database in order. Changes that fail to be written are queued again; until the write ends
+     * they still count against {@code max-pending}, so new changes cannot take their place.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            Map<Like, Boolean> batch;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new HashMap<>();
+                writing = batch.size();
+            }
+            List<Like> added = new ArrayList<>();
+            List<Like> removed = new ArrayList<>();
+            batch.forEach((like, isAdded) -> (isAdded ? added : removed).add(like));
+            long start = System.nanoTime();
+            try {
+                write(removed, false);
+                write(added, true);
+            } finally {
+                synchronized (this) {
+                    writing = 0;
+                }
+            }
+            log.debug("Flushed {} likes and {} unlikes in {} ms", added.size(), removed.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private void write(List<Like> likes, boolean isAdded) {
+        if (likes.isEmpty()) {
+            return;
+        }
+        try {
+            if (isAdded) {
+                storage.addLikes(likes);
+            } else {
+                storage.removeLikes(likes);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to write {} buffered {}, queued again", likes.size(), isAdded ? "likes" : "unlikes", e);
+            synchronized (this) {
+                likes.forEach(like -> merge(like, isAdded));
+            }
+        }
+    }
+
+    private synchronized int getQueuedCount() {
+        return pending.size() + writing;
+    }
+
+    private void flushIfFull() {
+        synchronized (flushLock) {
+            if (getQueuedCount() >= maxPending) {
+                flush();
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Write-behind flush failed", e);
+        }
+    }
+
+    /**
+     * A queued change of the pair is always the opposite one, applied earlier, so the two cancel.
+     */
+    private void merge(Like like, boolean isAdded) {
+        if (pending.remove(like) == null) {
+            pending.put(like, isAdded);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.service;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.model.MPA;
+import ru.yandex.practicum.filmorate.storage.CachedReferenceStorage;
 import ru.yandex.practicum.filmorate.storage.mpa.MPAStorage;
 
 import java.util.List;
@@ -13,7 +14,7 @@ public class MPAService {
 
     private final MPAStorage storage;
 
-    public MPAService(@Qualifier("MPADbStorage") MPAStorage storage) {
+    public MPAService(@Qualifier("cachedMPAStorage") MPAStorage storage) {
         this.storage = storage;
     }
 
@@ -24,4 +25,19 @@ public class MPAService {
     public Optional<MPA> findRatingById(int id) {
         return storage.findById(id);
     }
+
+    public String getRatingsETag() {
+        return VersionRegistry.eTag("mpas", getVersion());
+    }
+
+    public String getRatingETag(int id) {
+        return VersionRegistry.eTag("mpa", id, getVersion());
+    }
+
+    /**
+     * Reference data only changes through the cache, which counts its invalidations.
+     */
+    long getVersion() {
+        return storage instanceof CachedReferenceStorage ? ((CachedReferenceStorage<?>) storage).getVersion() : 0;
+    }
 }
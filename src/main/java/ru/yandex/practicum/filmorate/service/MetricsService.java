@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.metrics.RequestMetrics;
+import ru.yandex.practicum.filmorate.model.CacheStats;
+import ru.yandex.practicum.filmorate.model.Metrics;
+import ru.yandex.practicum.filmorate.storage.MeteredCache;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class MetricsService {
+
+    private final RequestMetrics requestMetrics;
+    private final Map<String, MeteredCache> caches;
+
+    public Metrics getMetrics() {
+        return Metrics.builder()
+                .endpoints(requestMetrics.getEndpointStats())
+                .caches(getCacheStats())
+                .build();
+    }
+
+    private List<CacheStats> getCacheStats() {
+        return caches.entrySet().stream()
+                .map(entry -> {
+                    long hits = entry.getValue().getHits();
+                    long misses = entry.getValue().getMisses();
+                    return CacheStats.builder()
+                            .cache(entry.getKey())
+                            .hits(hits)
+                            .misses(misses)
+                            .hitRatio(hits + misses == 0 ? 0 : (double) hits / (hits + misses))
+                            .build();
+                })
+                .collect(Collectors.toList());
+    }
+}
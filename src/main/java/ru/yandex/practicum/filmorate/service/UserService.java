@@ -1,23 +1,56 @@
 package ru.yandex.practicum.filmorate.service;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.model.BulkError;
+import ru.yandex.practicum.filmorate.model.BulkResult;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserDeletionEvent;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
+import javax.annotation.PostConstruct;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class UserService {
 
+    public static final int MAX_PAGE_SIZE = 1000;
+
     private final UserStorage storage;
+    private final Validator validator;
+    private final VersionRegistry versions = new VersionRegistry();
+    private final FriendGraph friendGraph;
+    private final ApplicationEventPublisher events;
 
     @Autowired
-    public UserService(@Qualifier("userDbStorage") UserStorage storage) { // inMemoryUserStorage
+    public UserService(@Qualifier("cachedUserStorage") UserStorage storage, Validator validator, // inMemoryUserStorage
+                       ApplicationEventPublisher events,
+                       @Value("${filmorate.friends.suggestions.max-visited:100000}") int suggestionsMaxVisited) {
         this.storage = storage;
+        this.validator = validator;
+        this.events = events;
+        this.friendGraph = new FriendGraph(suggestionsMaxVisited);
+    }
+
+    @PostConstruct
+    public void rebuildFriendGraph() {
+        long start = System.nanoTime();
+        friendGraph.rebuild(storage::streamFriendships);
+        log.info("Friend graph rebuilt in {} ms", (System.nanoTime() - start) / 1_000_000);
     }
 
     public User createUser(User user) {
@@ -25,20 +58,83 @@ public class UserService {
         return storage.create(newUser);
     }
 
+    public BulkResult<User> createUsers(List<User> users) {
+        long start = System.nanoTime();
+        List<User> validUsers = new ArrayList<>();
+        List<Integer> validIndexes = new ArrayList<>();
+        List<BulkError> errors = new ArrayList<>();
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            List<String> reasons = BulkImports.validate(validator, user);
+            if (reasons.isEmpty()) {
+                user.setId(0);
+                validUsers.add(validateName(user));
+                validIndexes.add(i);
+            } else {
+                errors.add(BulkError.builder().index(i).reasons(reasons).build());
+            }
+        }
+        List<User> imported = validUsers.isEmpty() ? new ArrayList<>() : storage.createAll(validUsers);
+        for (int i = 0; i < validUsers.size(); i++) {
+            if (validUsers.get(i).getId() == 0) {
+                errors.add(BulkError.builder()
+                        .index(validIndexes.get(i))
+                        .reasons(List.of("Email or login is already taken"))
+                        .build());
+            }
+        }
+        errors.sort(Comparator.comparingInt(BulkError::getIndex));
+        BulkResult<User> result = BulkImports.result(users.size(), imported, errors, start);
+        log.info("Bulk import of users: {} received, {} imported in {} ms ({} records/s)", result.getReceived(),
+                imported.size(), result.getDurationMillis(), result.getRecordsPerSecond());
+        return result;
+    }
+
     public Optional<User> updateUser(User user) {
-        return storage.update(user);
+        Optional<User> updated = storage.update(user);
+        updated.ifPresent(value -> versions.bump(value.getId()));
+        return updated;
     }
 
     public List<User> findAllUsers() {
         return storage.findAll();
     }
 
+    public List<User> findUsersPage(long after, int limit) {
+        return storage.findAll(Math.max(after, 0), pageSize(limit));
+    }
+
+    /**
+     * The number of entities a page requested with {@code limit} holds at most.
+     */
+    public static int pageSize(int limit) {
+        return Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+    }
+
+    public void exportUsers(Consumer<User> action) {
+        storage.streamAll(action);
+    }
+
     public Optional<User> findUserById(long id) {
         return storage.findById(id);
     }
 
+    public String getUserETag(long id) {
+        return VersionRegistry.eTag("user", id, versions.get(id));
+    }
+
+    /**
+     * Listeners of {@link UserDeletionEvent} remove the user's likes through their regular paths
+     * first, so the counts and indexes built from them follow.
+     */
     public boolean deleteUserById(long id) {
-        return storage.deleteById(id);
+        events.publishEvent(UserDeletionEvent.builder().userId(id).build());
+        boolean isDeleted = storage.deleteById(id);
+        if (isDeleted) {
+            friendGraph.removeUser(id);
+            versions.bump(id);
+        }
+        return isDeleted;
     }
 
     public List<User> getListOfFriends(long id) {
@@ -46,29 +142,44 @@ public class UserService {
     }
 
     public List<User> getListOfCommonFriends(long id, long otherId) {
-        return getListOfFriends(id).stream()
-                .filter(getListOfFriends(otherId)::contains)
+        return storage.getListOfCommonFriends(id, otherId);
+    }
+
+    /**
+     * @return users the user's friends are friends with, most mutual friends first
+     */
+    public List<User> getFriendSuggestions(long id, int limit) {
+        List<Long> ids = friendGraph.suggest(id, Math.min(limit, MAX_PAGE_SIZE));
+        Map<Long, User> users = storage.findAllById(ids).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        return ids.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
-    public boolean addToFriends(long id, long friendId) {
-        Optional<User> optUser = storage.findById(id);
-        Optional<User> optFriend = storage.findById(friendId);
+    public boolean existsById(long id) {
+        return storage.existsById(id);
+    }
 
-        if (optUser.isPresent() && optFriend.isPresent()) {
-            return storage.addToFriends(id, friendId);
+    public boolean addToFriends(long id, long friendId) {
+        boolean isAdded = storage.existsById(id) && storage.existsById(friendId)
+                && storage.addToFriends(id, friendId);
+        if (isAdded) {
+            friendGraph.addFriend(id, friendId);
         }
-        return false;
+        return isAdded;
     }
 
+    /**
+     * A friendship of a missing user cannot exist, so the delete itself is the existence check.
+     */
     public boolean deleteFromFriends(long id, long friendId) {
-        Optional<User> optUser = storage.findById(id);
-        Optional<User> optFriend = storage.findById(friendId);
-
-        if (optUser.isPresent() && optFriend.isPresent()) {
-            return storage.deleteFromFriends(id, friendId);
+        boolean isDeleted = storage.deleteFromFriends(id, friendId);
+        if (isDeleted) {
+            friendGraph.removeFriend(id, friendId);
         }
-        return false;
+        return isDeleted;
     }
 
     private User validateName(User user) {
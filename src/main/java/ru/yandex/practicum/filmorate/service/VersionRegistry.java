@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.service;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Collectors;
+
+/**
+ * Change counters for ETags, so that a conditional GET is answered without loading the entity.
+ * Ids are hashed onto a fixed number of stripes: a change may also bump the version of a stripe
+ * neighbour, which costs that neighbour one full response but never produces a stale 304.
+ * Counters start over on restart, so every tag carries the boot epoch of this process.
+ * <p>
+ * Writers must bump after the storage write: a reader that got the old version then at worst
+ * pairs it with the new body and gets a full response next time.
+ */
+class VersionRegistry {
+
+    private static final String BOOT_EPOCH = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private static final int STRIPES = 1 << 14;
+
+    private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+
+    long get(long id) {
+        return versions.get(stripeOf(id));
+    }
+
+    void bump(long id) {
+        versions.incrementAndGet(stripeOf(id));
+    }
+
+    static String eTag(String kind, long... parts) {
+        return Arrays.stream(parts)
+                .mapToObj(Long::toString)
+                .collect(Collectors.joining("-", "\"" + kind + "-" + BOOT_EPOCH + "-", "\""));
+    }
+
+    private static int stripeOf(long id) {
+        return (int) (id ^ (id >>> 32)) & (STRIPES - 1);
+    }
+}
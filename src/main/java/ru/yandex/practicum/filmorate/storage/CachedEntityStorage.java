@@ -0,0 +1,315 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Bounded read-through cache of entities by id. Entries are spread over segments, each an
+ * access-ordered map under its own lock that evicts its least recently used entry when full.
+ * An entry older than the time to live, or loaded before a change of {@link #dependencyVersion()},
+ * is reloaded.
+ * <p>
+ * Writes going through this storage refresh or evict their entry and bump the version of its
+ * segment. A value loaded from the delegate is only cached if that version did not change during
+ * the load and no {@link #writeThrough} of the segment is running, so a slow read never overwrites
+ * a newer write. Entities are mutable, so the cache keeps its own copies and hands out copies.
+ */
+public abstract class CachedEntityStorage<T> implements Storage<T>, MeteredCache {
+
+    private static final int SEGMENTS = 16;
+
+    private final Storage<T> storage;
+    private final ToLongFunction<T> idExtractor;
+    private final UnaryOperator<T> copier;
+    private final long ttlNanos;
+    private final List<Segment<T>> segments = new ArrayList<>(SEGMENTS);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    protected CachedEntityStorage(Storage<T> storage, ToLongFunction<T> idExtractor, UnaryOperator<T> copier,
+                                  int maxSize, Duration ttl) {
+        this.storage = storage;
+        this.idExtractor = idExtractor;
+        this.copier = copier;
+        this.ttlNanos = ttl.toNanos();
+        int segmentSize = Math.max(maxSize, 0) / SEGMENTS;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments.add(new Segment<>(i < maxSize % SEGMENTS ? segmentSize + 1 : segmentSize));
+        }
+    }
+
+    @Override
+    public T create(T t) {
+        T created = storage.create(t);
+        put(created);
+        return created;
+    }
+
+    @Override
+    public Optional<T> update(T t) {
+        Optional<T> updated = storage.update(t);
+        updated.ifPresent(value -> refresh(idExtractor.applyAsLong(value), cached -> merge(cached, value)));
+        return updated;
+    }
+
+    @Override
+    public List<T> findAll() {
+        return storage.findAll();
+    }
+
+    @Override
+    public Optional<T> findById(long id) {
+        T cached = get(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Segment<T> segment = segmentOf(id);
+        long version = segment.getVersion();
+        long dependencies = dependencyVersion();
+        Optional<T> loaded = storage.findById(id);
+        loaded.ifPresent(value -> segment.putIfUnchanged(id, copier.apply(value), version, dependencies,
+                System.nanoTime() + ttlNanos));
+        return loaded;
+    }
+
+    /**
+     * A miss asks the delegate's existence check, which is cheaper than loading the entity, and
+     * leaves the cache as it is.
+     */
+    @Override
+    public boolean existsById(long id) {
+        return isCached(id) || storage.existsById(id);
+    }
+
+    @Override
+    public boolean deleteById(long id) {
+        boolean isDeleted = storage.deleteById(id);
+        evict(id);
+        return isDeleted;
+    }
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int getSize() {
+        int size = 0;
+        for (Segment<T> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Serves cached entities and loads the others with a single call to {@code loader}.
+     *
+     * @return the existing entities in ascending id order
+     */
+    protected List<T> findAllById(Collection<Long> ids, Function<Collection<Long>, List<T>> loader) {
+        Map<Long, T> found = new TreeMap<>();
+        Map<Long, Long> missingVersions = new HashMap<>();
+        for (long id : new TreeSet<>(ids)) {
+            T cached = get(id);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                missingVersions.put(id, segmentOf(id).getVersion());
+            }
+        }
+        if (!missingVersions.isEmpty()) {
+            long dependencies = dependencyVersion();
+            long expiresAt = System.nanoTime() + ttlNanos;
+            for (T value : loader.apply(new ArrayList<>(missingVersions.keySet()))) {
+                long id = idExtractor.applyAsLong(value);
+                Long version = missingVersions.get(id);
+                if (version != null) {
+                    segmentOf(id).putIfUnchanged(id, copier.apply(value), version, dependencies, expiresAt);
+                }
+                found.put(id, value);
+            }
+        }
+        return new ArrayList<>(found.values());
+    }
+
+    /**
+     * Applies a change the delegate has just stored to the cached entity, if there is one.
+     * The change receives the cache's own copy and may modify it in place.
+     */
+    protected void refresh(long id, UnaryOperator<T> change) {
+        Segment<T> segment = segmentOf(id);
+        synchronized (segment) {
+            segment.version++;
+            Entry<T> entry = segment.get(id);
+            if (entry != null) {
+                if (isValid(entry)) {
+                    segment.put(id, new Entry<>(change.apply(entry.value), entry.dependencies,
+                            System.nanoTime() + ttlNanos));
+                } else {
+                    segment.remove(id);
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs a write of the delegate together with the {@link #refresh} that applies it to the cached
+     * entities with the given ids. Values of their segments loaded while it runs are not cached:
+     * such a value may already include the write, which the refresh would then apply a second time.
+     */
+    protected <R> R writeThrough(Collection<Long> ids, Supplier<R> write) {
+        List<Segment<T>> written = new ArrayList<>(ids.size());
+        try {
+            for (long id : ids) {
+                Segment<T> segment = segmentOf(id);
+                synchronized (segment) {
+                    segment.writing++;
+                }
+                written.add(segment);
+            }
+            return write.get();
+        } finally {
+            for (Segment<T> segment : written) {
+                synchronized (segment) {
+                    segment.writing--;
+                }
+            }
+        }
+    }
+
+    protected void put(T value) {
+        long id = idExtractor.applyAsLong(value);
+        Segment<T> segment = segmentOf(id);
+        T copy = copier.apply(value);
+        synchronized (segment) {
+            segment.version++;
+            segment.put(id, new Entry<>(copy, dependencyVersion(), System.nanoTime() + ttlNanos));
+        }
+    }
+
+    protected void evict(long id) {
+        Segment<T> segment = segmentOf(id);
+        synchronized (segment) {
+            segment.version++;
+            segment.remove(id);
+        }
+    }
+
+    /**
+     * Builds the entry stored after an update from the cached entity and the updated one.
+     * By default the updated entity replaces the cached one.
+     */
+    protected T merge(T cached, T updated) {
+        return copier.apply(updated);
+    }
+
+    /**
+     * Version of the data cached entities are hydrated with; entries loaded under an older
+     * version are reloaded.
+     */
+    protected long dependencyVersion() {
+        return 0;
+    }
+
+    private T get(long id) {
+        Segment<T> segment = segmentOf(id);
+        synchronized (segment) {
+            Entry<T> entry = segment.get(id);
+            if (entry != null && isValid(entry)) {
+                hits.increment();
+                return copier.apply(entry.value);
+            }
+            if (entry != null) {
+                segment.remove(id);
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    private boolean isCached(long id) {
+        Segment<T> segment = segmentOf(id);
+        synchronized (segment) {
+            Entry<T> entry = segment.get(id);
+            if (entry != null && isValid(entry)) {
+                hits.increment();
+                return true;
+            }
+            if (entry != null) {
+                segment.remove(id);
+            }
+        }
+        misses.increment();
+        return false;
+    }
+
+    private boolean isValid(Entry<T> entry) {
+        return entry.expiresAt - System.nanoTime() > 0 && entry.dependencies == dependencyVersion();
+    }
+
+    private Segment<T> segmentOf(long id) {
+        long hash = id * 0x9E3779B97F4A7C15L;
+        return segments.get((int) (hash >>> 60));
+    }
+
+    private static class Entry<T> {
+
+        private final T value;
+        private final long dependencies;
+        private final long expiresAt;
+
+        private Entry(T value, long dependencies, long expiresAt) {
+            this.value = value;
+            this.dependencies = dependencies;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static class Segment<T> extends LinkedHashMap<Long, Entry<T>> {
+
+        private final int capacity;
+        private long version;
+        private int writing;
+
+        private Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        private synchronized long getVersion() {
+            return version;
+        }
+
+        private synchronized void putIfUnchanged(long id, T value, long loadedVersion, long dependencies,
+                                                 long expiresAt) {
+            if (version == loadedVersion && writing == 0) {
+                put(id, new Entry<>(value, dependencies, expiresAt));
+            }
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry<T>> eldest) {
+            return size() > capacity;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+/**
+ * Read-through cache for small dictionaries with integer ids (genres, ratings).
+ * The whole table is loaded into an array indexed by id on first access and
+ * served from there until any write goes through this storage.
+ * Ids at or above {@code maxSize} are never cached and always hit the delegate.
+ */
+public abstract class CachedReferenceStorage<T> implements Storage<T>, MeteredCache {
+
+    private final Storage<T> storage;
+    private final ToIntFunction<T> idExtractor;
+    private final int maxSize;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private volatile Snapshot<T> snapshot;
+    private long version;
+
+    protected CachedReferenceStorage(Storage<T> storage, ToIntFunction<T> idExtractor, int maxSize) {
+        this.storage = storage;
+        this.idExtractor = idExtractor;
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public T create(T t) {
+        T created = storage.create(t);
+        invalidate();
+        return created;
+    }
+
+    @Override
+    public Optional<T> update(T t) {
+        Optional<T> updated = storage.update(t);
+        if (updated.isPresent()) {
+            invalidate();
+        }
+        return updated;
+    }
+
+    @Override
+    public List<T> findAll() {
+        Snapshot<T> current = snapshot;
+        if (current == null) {
+            misses.incrementAndGet();
+            current = load();
+        } else if (current.all != null) {
+            hits.incrementAndGet();
+        }
+        if (current.all != null) {
+            return new ArrayList<>(current.all);
+        }
+        misses.incrementAndGet();
+        return storage.findAll();
+    }
+
+    @Override
+    public Optional<T> findById(long id) {
+        Snapshot<T> current = snapshot;
+        if (current == null) {
+            misses.incrementAndGet();
+            current = load();
+        } else if (current.covers(id)) {
+            hits.incrementAndGet();
+        }
+        if (current.covers(id)) {
+            return Optional.ofNullable(current.get(id));
+        }
+        misses.incrementAndGet();
+        return storage.findById(id);
+    }
+
+    @Override
+    public boolean existsById(long id) {
+        return findById(id).isPresent();
+    }
+
+    @Override
+    public boolean deleteById(long id) {
+        boolean isDeleted = storage.deleteById(id);
+        if (isDeleted) {
+            invalidate();
+        }
+        return isDeleted;
+    }
+
+    @Override
+    public long getHits() {
+        return hits.get();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    public synchronized void invalidate() {
+        version++;
+        snapshot = null;
+    }
+
+    private Snapshot<T> load() {
+        long loadedVersion = getVersion();
+        List<T> values = storage.findAll();
+        int length = 0;
+        boolean isComplete = values.size() <= maxSize;
+        for (T value : values) {
+            int id = idExtractor.applyAsInt(value);
+            if (id >= 0 && id < maxSize) {
+                length = Math.max(length, id + 1);
+            } else {
+                isComplete = false;
+            }
+        }
+        Object[] byId = new Object[length];
+        for (T value : values) {
+            int id = idExtractor.applyAsInt(value);
+            if (id >= 0 && id < length) {
+                byId[id] = value;
+            }
+        }
+        Snapshot<T> loaded = new Snapshot<>(byId, maxSize, isComplete ? List.copyOf(values) : null);
+        synchronized (this) {
+            if (version == loadedVersion) {
+                snapshot = loaded;
+            }
+        }
+        return loaded;
+    }
+
+    private static class Snapshot<T> {
+
+        private final Object[] byId;
+        private final int maxSize;
+        private final List<T> all;
+
+        private Snapshot(Object[] byId, int maxSize, List<T> all) {
+            this.byId = byId;
+            this.maxSize = maxSize;
+            this.all = all;
+        }
+
+        private boolean covers(long id) {
+            return all != null || (id >= 0 && id < maxSize);
+        }
+
+        @SuppressWarnings("unchecked")
+        private T get(long id) {
+            return id >= 0 && id < byId.length ? (T) byId[(int) id] : null;
+        }
+    }
+}
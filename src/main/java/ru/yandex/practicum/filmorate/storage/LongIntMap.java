@@ -0,0 +1,128 @@
+package ru.yandex.practicum.filmorate.storage;
+
+/**
+ * Counters keyed by positive ids, stored in parallel open-addressing tables of primitive longs
+ * and ints. A counter that drops to zero is removed, so only non-zero counts are kept.
+ * Unlike {@link LongSet} this map is not synchronized: its owner guards it.
+ */
+public class LongIntMap {
+
+    private static final int MIN_CAPACITY = 4;
+    private static final long EMPTY = 0;
+
+    private long[] keys = new long[MIN_CAPACITY];
+    private int[] values = new int[MIN_CAPACITY];
+    private int size;
+
+    /**
+     * @return the counter after the change
+     */
+    public int add(long key, int delta) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("Id should be positive: " + key);
+        }
+        int mask = keys.length - 1;
+        int slot = slotOf(key, mask);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                int value = values[slot] + delta;
+                if (value == 0) {
+                    removeAt(slot);
+                } else {
+                    values[slot] = value;
+                }
+                return value;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (delta != 0) {
+            keys[slot] = key;
+            values[slot] = delta;
+            if (++size * 4 > keys.length * 3) {
+                resize(keys.length * 2);
+            }
+        }
+        return delta;
+    }
+
+    public int get(long key) {
+        if (key <= 0) {
+            return 0;
+        }
+        int mask = keys.length - 1;
+        int slot = slotOf(key, mask);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Visits the entries in no particular order. The action must not modify this map.
+     */
+    public void forEach(EntryConsumer action) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                action.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+
+        void accept(long key, int value);
+    }
+
+    private void removeAt(int slot) {
+        // Backward shift deletion, as in LongSet
+        int mask = keys.length - 1;
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = slotOf(keys[next], mask);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        values[gap] = 0;
+        size--;
+    }
+
+    private static int slotOf(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slotOf(oldKeys[i], capacity - 1);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package ru.yandex.practicum.filmorate.storage;
+
+/**
+ * Cache exposing its lookup counters, reported per bean name by the metrics endpoint.
+ */
+public interface MeteredCache {
+
+    long getHits();
+
+    long getMisses();
+}
@@ -13,5 +13,10 @@ public interface Storage<T> {
 
     Optional<T> findById(long id);
 
+    /**
+     * Checks presence without loading or hydrating the entity.
+     */
+    boolean existsById(long id);
+
     boolean deleteById(long id);
 }
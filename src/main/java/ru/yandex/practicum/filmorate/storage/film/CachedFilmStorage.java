@@ -0,0 +1,184 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.storage.CachedEntityStorage;
+import ru.yandex.practicum.filmorate.storage.CachedReferenceStorage;
+import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MPAStorage;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Caches films by id. Likes only change likes_count, so a like or unlike adjusts the cached
+ * film instead of evicting it, and the existence check of the next like still hits the cache.
+ * A film loaded while a like of it is being stored is not cached, as its likes_count may already
+ * include that like.
+ * Films carry genre and rating names, so they are reloaded after those dictionaries change.
+ */
+@Component
+public class CachedFilmStorage extends CachedEntityStorage<Film> implements FilmStorage {
+
+    private final FilmStorage storage;
+    private final GenreStorage genreStorage;
+    private final MPAStorage mpaStorage;
+
+    public CachedFilmStorage(@Qualifier("filmDbStorage") FilmStorage storage,
+                             @Qualifier("cachedGenreStorage") GenreStorage genreStorage,
+                             @Qualifier("cachedMPAStorage") MPAStorage mpaStorage,
+                             @Value("${filmorate.cache.entity.max-size:10000}") int maxSize,
+                             @Value("${filmorate.cache.entity.ttl:10m}") Duration ttl) {
+        super(storage, Film::getId, CachedFilmStorage::copy, maxSize, ttl);
+        this.storage = storage;
+        this.genreStorage = genreStorage;
+        this.mpaStorage = mpaStorage;
+    }
+
+    /**
+     * A like can be stored before the created film would be cached, and the created film carries
+     * the likes_count the client sent, so it is loaded on first read instead.
+     */
+    @Override
+    public Film create(Film film) {
+        Film created = storage.create(film);
+        evict(created.getId());
+        return created;
+    }
+
+    @Override
+    public boolean removeLikeFromFilm(long id, long userId) {
+        return writeThrough(List.of(id), () -> {
+            boolean isRemoved = storage.removeLikeFromFilm(id, userId);
+            if (isRemoved) {
+                addLikesCount(id, -1);
+            }
+            return isRemoved;
+        });
+    }
+
+    @Override
+    public boolean addLikeToFilm(long id, long userId) {
+        return writeThrough(List.of(id), () -> {
+            boolean isAdded = storage.addLikeToFilm(id, userId);
+            if (isAdded) {
+                addLikesCount(id, 1);
+            }
+            return isAdded;
+        });
+    }
+
+    @Override
+    public List<Film> findTopLikableFilms(long count) {
+        return storage.findTopLikableFilms(count);
+    }
+
+    @Override
+    public List<Film> findAll(long after, int limit) {
+        return storage.findAll(after, limit);
+    }
+
+    @Override
+    public List<Film> findAllById(Collection<Long> ids) {
+        return findAllById(ids, storage::findAllById);
+    }
+
+    @Override
+    public void streamAll(Consumer<Film> action) {
+        storage.streamAll(action);
+    }
+
+    @Override
+    public void streamLikes(Consumer<Like> action) {
+        storage.streamLikes(action);
+    }
+
+    /**
+     * Bulk imports are not cached, so they do not push the entries that are actually read out.
+     */
+    @Override
+    public List<Film> createAll(List<Film> films) {
+        return storage.createAll(films);
+    }
+
+    @Override
+    public List<Boolean> addLikes(List<Like> likes) {
+        return writeThrough(filmIds(likes), () -> {
+            List<Boolean> added = storage.addLikes(likes);
+            for (int i = 0; i < likes.size(); i++) {
+                if (added.get(i)) {
+                    addLikesCount(likes.get(i).getFilmId(), 1);
+                }
+            }
+            return added;
+        });
+    }
+
+    @Override
+    public List<Boolean> removeLikes(List<Like> likes) {
+        return writeThrough(filmIds(likes), () -> {
+            List<Boolean> removed = storage.removeLikes(likes);
+            for (int i = 0; i < likes.size(); i++) {
+                if (removed.get(i)) {
+                    addLikesCount(likes.get(i).getFilmId(), -1);
+                }
+            }
+            return removed;
+        });
+    }
+
+    /**
+     * An update does not touch likes_count, and the updated film carries whatever the client sent.
+     */
+    @Override
+    protected Film merge(Film cached, Film updated) {
+        Film merged = copy(updated);
+        merged.setLikes_count(cached.getLikes_count());
+        return merged;
+    }
+
+    @Override
+    protected long dependencyVersion() {
+        return versionOf(genreStorage) + versionOf(mpaStorage);
+    }
+
+    private void addLikesCount(long id, long delta) {
+        refresh(id, film -> {
+            film.setLikes_count(film.getLikes_count() + delta);
+            return film;
+        });
+    }
+
+    private static Set<Long> filmIds(List<Like> likes) {
+        Set<Long> ids = new HashSet<>();
+        for (Like like : likes) {
+            ids.add(like.getFilmId());
+        }
+        return ids;
+    }
+
+    private static long versionOf(Object storage) {
+        return storage instanceof CachedReferenceStorage ? ((CachedReferenceStorage<?>) storage).getVersion() : 0;
+    }
+
+    private static Film copy(Film film) {
+        return Film.builder()
+                .id(film.getId())
+                .name(film.getName())
+                .description(film.getDescription())
+                .duration(film.getDuration())
+                .mpa(film.getMpa())
+                .genres(film.getGenres() == null ? null : new LinkedHashSet<>(film.getGenres()))
+                .releaseDate(film.getReleaseDate())
+                .likes_count(film.getLikes_count())
+                .build();
+    }
+}
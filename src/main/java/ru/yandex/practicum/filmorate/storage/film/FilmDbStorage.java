@@ -1,13 +1,21 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.MPA;
 import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
 import ru.yandex.practicum.filmorate.storage.mpa.MPAStorage;
 
@@ -15,14 +23,15 @@ import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.List;
-import java.util.Optional;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.*;
+import java.util.function.Consumer;
 
 @Component
 public class FilmDbStorage implements FilmStorage {
 
+    private static final int STREAM_FETCH_SIZE = 500;
+    private static final int BATCH_SIZE = 500;
+
     private final JdbcTemplate jdbcTemplate;
     private final GenreStorage genreStorage;
     private final MPAStorage mpaStorage;
@@ -30,25 +39,49 @@ public class FilmDbStorage implements FilmStorage {
             "rating_id) VALUES (?, ?, ?, ?, ?)";
     private static final String UPDATE_FILM = "UPDATE films SET name = ?, description = ?, duration = ?, " +
             "release_date = ?, rating_id = ? WHERE film_id = ?";
-    private static final String FIND_FILM = "SELECT * FROM films WHERE film_id = ?";
-    private static final String FIND_ALL_FILMS = "SELECT * FROM films";
+    private static final String SELECT_FILMS = "SELECT f.*, r.name AS rating_name FROM films f " +
+            "LEFT JOIN ratings r ON f.rating_id = r.rating_id ";
+    private static final String FIND_FILM = SELECT_FILMS + "WHERE f.film_id = ?";
+    private static final String FILM_EXISTS = "SELECT EXISTS (SELECT 1 FROM films WHERE film_id = ?)";
+    private static final String FIND_ALL_FILMS = SELECT_FILMS + "ORDER BY f.film_id";
+    private static final String FIND_FILMS_BY_IDS = SELECT_FILMS + "WHERE f.film_id IN (%s) ORDER BY f.film_id";
+    private static final String FIND_FILMS_PAGE = SELECT_FILMS + "WHERE f.film_id > ? ORDER BY f.film_id LIMIT ?";
+    private static final String STREAM_FILMS = "SELECT f.*, r.name AS rating_name, g.genre_id, " +
+            "g.name AS genre_name FROM films f LEFT JOIN ratings r ON f.rating_id = r.rating_id " +
+            "LEFT JOIN films_genres fg ON f.film_id = fg.film_id LEFT JOIN genres g ON fg.genre_id = g.genre_id " +
+            "ORDER BY f.film_id, g.genre_id";
+    private static final String STREAM_LIKES = "SELECT film_id, user_id FROM films_likes";
+    private static final String FIND_TOP_FILMS = SELECT_FILMS + "ORDER BY f.likes_count DESC, f.film_id LIMIT ?";
     private static final String DELETE_FILM = "DELETE FROM films WHERE film_id = ?";
     private static final String ADD_LIKE = "INSERT INTO films_likes(film_id, user_id) VALUES (?, ?)";
+    private static final String ADD_LIKE_IF_ABSENT = "INSERT INTO films_likes(film_id, user_id) " +
+            "SELECT f.film_id, u.user_id FROM films f, users u WHERE f.film_id = ? AND u.user_id = ? " +
+            "AND NOT EXISTS (SELECT 1 FROM films_likes l WHERE l.film_id = f.film_id AND l.user_id = u.user_id)";
+    private static final String ADD_LIKES_COUNT = "UPDATE films SET likes_count = likes_count + ? WHERE film_id = ?";
     private static final String DELETE_LIKE = "DELETE FROM films_likes WHERE film_id = ? AND user_id = ?";
-    private static final String GET_LIKES_COUNT = "UPDATE films SET likes_count = ? WHERE film_id = ?";
-    private static final String GET_FILM_GENRE = "SELECT genre_id FROM films_genres WHERE film_id = ?";
+    private static final String INCREMENT_LIKES_COUNT = "UPDATE films SET likes_count = likes_count + 1 " +
+            "WHERE film_id = ?";
+    private static final String DECREMENT_LIKES_COUNT = "UPDATE films SET likes_count = likes_count - 1 " +
+            "WHERE film_id = ?";
+    private static final String SELECT_FILMS_GENRES = "SELECT fg.film_id, g.genre_id, g.name FROM films_genres fg " +
+            "JOIN genres g ON fg.genre_id = g.genre_id ";
+    private static final String GET_FILMS_GENRES = SELECT_FILMS_GENRES + "WHERE fg.film_id IN (%s) " +
+            "ORDER BY fg.film_id, g.genre_id";
+    private static final String GET_ALL_FILMS_GENRES = SELECT_FILMS_GENRES + "ORDER BY fg.film_id, g.genre_id";
+    private static final String GET_FILM_GENRE_IDS = "SELECT genre_id FROM films_genres WHERE film_id = ?";
     private static final String ADD_FILM_GENRE = "INSERT INTO films_genres(film_id, genre_id) VALUES (?, ?)";
-    private static final String DELETE_FILM_GENRE = "DELETE FROM films_genres WHERE film_id = ?";
+    private static final String DELETE_FILM_GENRE = "DELETE FROM films_genres WHERE film_id = ? AND genre_id = ?";
 
     public FilmDbStorage(JdbcTemplate jdbcTemplate,
-                         @Qualifier("genreDbStorage") GenreStorage genreStorage,
-                         @Qualifier("MPADbStorage") MPAStorage mpaStorage) {
+                         @Qualifier("cachedGenreStorage") GenreStorage genreStorage,
+                         @Qualifier("cachedMPAStorage") MPAStorage mpaStorage) {
         this.jdbcTemplate = jdbcTemplate;
         this.genreStorage = genreStorage;
         this.mpaStorage = mpaStorage;
     }
 
     @Override
+    @Transactional
     public Film create(Film film) {
         KeyHolder keyHolder = new GeneratedKeyHolder();
         jdbcTemplate.update(connection -> {
@@ -62,14 +95,57 @@ public class FilmDbStorage implements FilmStorage {
         }, keyHolder);
         long filmId = keyHolder.getKey().longValue();
         film.setId(filmId);
-        addGenreIdsToDB(film);
+        Set<Integer> genreIds = getGenreIds(film);
+        addGenreIdsToDB(filmId, genreIds);
 
-        setGenresFromDB(film);
+        setGenresFromCache(film, genreIds);
         setRatingFromDB(film);
         return film;
     }
 
     @Override
+    @Transactional
+    public List<Film> createAll(List<Film> films) {
+        for (int from = 0; from < films.size(); from += BATCH_SIZE) {
+            List<Film> chunk = films.subList(from, Math.min(from + BATCH_SIZE, films.size()));
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                try (PreparedStatement stmt = connection.prepareStatement(CREATE_FILM, new String[]{"film_id"})) {
+                    for (Film film : chunk) {
+                        stmt.setString(1, film.getName());
+                        stmt.setString(2, film.getDescription());
+                        stmt.setInt(3, film.getDuration());
+                        stmt.setDate(4, Date.valueOf(film.getReleaseDate()));
+                        stmt.setInt(5, film.getMpa().getId());
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                    try (ResultSet keys = stmt.getGeneratedKeys()) {
+                        for (int i = 0; keys.next(); i++) {
+                            chunk.get(i).setId(keys.getLong(1));
+                        }
+                    }
+                }
+                return null;
+            });
+        }
+        List<long[]> filmGenres = new ArrayList<>();
+        for (Film film : films) {
+            Set<Integer> genreIds = getGenreIds(film);
+            for (int genreId : genreIds) {
+                filmGenres.add(new long[]{film.getId(), genreId});
+            }
+            setGenresFromCache(film, genreIds);
+            setRatingFromDB(film);
+        }
+        jdbcTemplate.batchUpdate(ADD_FILM_GENRE, filmGenres, BATCH_SIZE, (stmt, filmGenre) -> {
+            stmt.setLong(1, filmGenre[0]);
+            stmt.setLong(2, filmGenre[1]);
+        });
+        return films;
+    }
+
+    @Override
+    @Transactional
     public Optional<Film> update(Film film) {
         boolean isUpdated = jdbcTemplate.update(UPDATE_FILM,
                 film.getName(),
@@ -78,24 +154,102 @@ public class FilmDbStorage implements FilmStorage {
                 film.getReleaseDate(),
                 film.getMpa().getId(),
                 film.getId()) > 0;
-        if (isUpdated) {
-            jdbcTemplate.update(DELETE_FILM_GENRE, film.getId());
-            addGenreIdsToDB(film);
+        if (!isUpdated) {
+            return Optional.empty();
         }
-        setGenresFromDB(film);
+        Set<Integer> genreIds = getGenreIds(film);
+        Set<Integer> storedGenreIds = new HashSet<>(jdbcTemplate.queryForList(GET_FILM_GENRE_IDS, Integer.class,
+                film.getId()));
+        Set<Integer> addedGenreIds = new TreeSet<>(genreIds);
+        addedGenreIds.removeAll(storedGenreIds);
+        storedGenreIds.removeAll(genreIds);
+        addGenreIdsToDB(film.getId(), addedGenreIds);
+        deleteGenreIdsFromDB(film.getId(), storedGenreIds);
+
+        setGenresFromCache(film, genreIds);
         setRatingFromDB(film);
-        return isUpdated ? Optional.of(film) : Optional.empty();
+        return Optional.of(film);
     }
 
     @Override
     public List<Film> findAll() {
         List<Film> films = jdbcTemplate.query(FIND_ALL_FILMS, this::mapRowToFilm);
-        for (Film film : films) {
-            setGenresFromDB(film);
+        Map<Long, Film> filmsById = mapFilmsById(films);
+        RowCallbackHandler genresHandler = resultSet -> addGenreToFilm(filmsById, resultSet);
+        jdbcTemplate.query(GET_ALL_FILMS_GENRES, genresHandler);
+        return films;
+    }
+
+    @Override
+    public List<Film> findAll(long after, int limit) {
+        List<Film> films = jdbcTemplate.query(FIND_FILMS_PAGE, this::mapRowToFilm, after, limit);
+        setGenresFromDB(films);
+        return films;
+    }
+
+    @Override
+    public List<Film> findAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
         }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        List<Film> films = jdbcTemplate.query(String.format(FIND_FILMS_BY_IDS, placeholders), this::mapRowToFilm,
+                ids.toArray());
+        setGenresFromDB(films);
         return films;
     }
 
+    /**
+     * Reads films and genres through a single cursor ordered by film id, so rows of one film are
+     * adjacent and each film can be handed over as soon as the next one starts.
+     */
+    @Override
+    public void streamAll(Consumer<Film> action) {
+        PreparedStatementCreator statementCreator = connection -> {
+            PreparedStatement stmt = connection.prepareStatement(STREAM_FILMS);
+            stmt.setFetchSize(STREAM_FETCH_SIZE);
+            return stmt;
+        };
+        ResultSetExtractor<Void> filmsExtractor = resultSet -> {
+            Film current = null;
+            while (resultSet.next()) {
+                if (current == null || current.getId() != resultSet.getLong("film_id")) {
+                    if (current != null) {
+                        action.accept(current);
+                    }
+                    current = mapRowToFilm(resultSet, resultSet.getRow());
+                    current.setGenres(new LinkedHashSet<>());
+                }
+                int genreId = resultSet.getInt("genre_id");
+                if (!resultSet.wasNull()) {
+                    current.getGenres().add(Genre.builder()
+                            .id(genreId)
+                            .name(resultSet.getString("genre_name"))
+                            .build());
+                }
+            }
+            if (current != null) {
+                action.accept(current);
+            }
+            return null;
+        };
+        jdbcTemplate.query(statementCreator, filmsExtractor);
+    }
+
+    @Override
+    public void streamLikes(Consumer<Like> action) {
+        PreparedStatementCreator statementCreator = connection -> {
+            PreparedStatement stmt = connection.prepareStatement(STREAM_LIKES);
+            stmt.setFetchSize(STREAM_FETCH_SIZE);
+            return stmt;
+        };
+        RowCallbackHandler likesHandler = resultSet -> action.accept(Like.builder()
+                .filmId(resultSet.getLong("film_id"))
+                .userId(resultSet.getLong("user_id"))
+                .build());
+        jdbcTemplate.query(statementCreator, likesHandler);
+    }
+
     @Override
     public Optional<Film> findById(long id) {
         try {
@@ -108,49 +262,156 @@ public class FilmDbStorage implements FilmStorage {
         }
     }
 
+    @Override
+    public boolean existsById(long id) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(FILM_EXISTS, Boolean.class, id));
+    }
+
     @Override
     public boolean deleteById(long id) {
         return jdbcTemplate.update(DELETE_FILM, id) > 0;
     }
 
     @Override
+    @Transactional
     public boolean removeLikeFromFilm(long id, long userId) {
         boolean isRemoved = jdbcTemplate.update(DELETE_LIKE, id, userId) > 0;
         if (isRemoved) {
-            long likesAmount = findById(id).get().getLikes_count() - 1;
-            jdbcTemplate.update(GET_LIKES_COUNT, likesAmount, id);
+            jdbcTemplate.update(DECREMENT_LIKES_COUNT, id);
         }
         return isRemoved;
     }
 
     @Override
+    @Transactional
     public boolean addLikeToFilm(long id, long userId) {
-        boolean isAdded = jdbcTemplate.update(ADD_LIKE, id, userId) > 0;
-        if (isAdded) {
-            long likesAmount = findById(id).get().getLikes_count() + 1;
-            jdbcTemplate.update(GET_LIKES_COUNT, likesAmount, id);
+        try {
+            jdbcTemplate.update(ADD_LIKE, id, userId);
+        } catch (DuplicateKeyException e) {
+            return false;
         }
-        return isAdded;
+        jdbcTemplate.update(INCREMENT_LIKES_COUNT, id);
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public List<Boolean> addLikes(List<Like> likes) {
+        return updateLikes(ADD_LIKE_IF_ABSENT, likes, 1);
+    }
+
+    @Override
+    @Transactional
+    public List<Boolean> removeLikes(List<Like> likes) {
+        return updateLikes(DELETE_LIKE, likes, -1);
+    }
+
+    /**
+     * Runs the like statement in batches, then moves likes_count of every affected film with a
+     * single statement per film.
+     */
+    private List<Boolean> updateLikes(String sql, List<Like> likes, long delta) {
+        int[][] updateCounts = jdbcTemplate.batchUpdate(sql, likes, BATCH_SIZE, (stmt, like) -> {
+            stmt.setLong(1, like.getFilmId());
+            stmt.setLong(2, like.getUserId());
+        });
+        List<Boolean> updated = new ArrayList<>(likes.size());
+        Map<Long, Long> deltaByFilm = new HashMap<>();
+        for (int[] chunkCounts : updateCounts) {
+            for (int count : chunkCounts) {
+                Like like = likes.get(updated.size());
+                updated.add(count > 0);
+                if (count > 0) {
+                    deltaByFilm.merge(like.getFilmId(), delta, Long::sum);
+                }
+            }
+        }
+        jdbcTemplate.batchUpdate(ADD_LIKES_COUNT, deltaByFilm.entrySet(), BATCH_SIZE, (stmt, filmLikes) -> {
+            stmt.setLong(1, filmLikes.getValue());
+            stmt.setLong(2, filmLikes.getKey());
+        });
+        return updated;
+    }
+
+    @Override
+    public List<Film> findTopLikableFilms(long count) {
+        List<Film> films = jdbcTemplate.query(FIND_TOP_FILMS, this::mapRowToFilm, count);
+        setGenresFromDB(films);
+        return films;
     }
 
     private void setGenresFromDB(Film film) {
-        Set<Genre> genreSet = jdbcTemplate.queryForList(GET_FILM_GENRE, Long.class, film.getId())
-                .stream()
-                .map(genreId -> genreStorage.findById(genreId).get())
-                .collect(Collectors.toSet());
-        film.setGenres(genreSet);
+        setGenresFromDB(List.of(film));
+    }
+
+    private void setGenresFromDB(List<Film> films) {
+        if (films.isEmpty()) {
+            return;
+        }
+        Map<Long, Film> filmsById = mapFilmsById(films);
+        String placeholders = String.join(", ", Collections.nCopies(filmsById.size(), "?"));
+        RowCallbackHandler genresHandler = resultSet -> addGenreToFilm(filmsById, resultSet);
+        jdbcTemplate.query(String.format(GET_FILMS_GENRES, placeholders), genresHandler,
+                filmsById.keySet().toArray());
+    }
+
+    private Map<Long, Film> mapFilmsById(List<Film> films) {
+        Map<Long, Film> filmsById = new LinkedHashMap<>();
+        for (Film film : films) {
+            film.setGenres(new LinkedHashSet<>());
+            filmsById.put(film.getId(), film);
+        }
+        return filmsById;
+    }
+
+    private void addGenreToFilm(Map<Long, Film> filmsById, ResultSet resultSet) throws SQLException {
+        Film film = filmsById.get(resultSet.getLong("film_id"));
+        if (film != null) {
+            film.getGenres().add(Genre.builder()
+                    .id(resultSet.getInt("genre_id"))
+                    .name(resultSet.getString("name"))
+                    .build());
+        }
     }
 
     private void setRatingFromDB(Film film) {
         film.setMpa(mpaStorage.findById(film.getMpa().getId()).get());
     }
 
-    private void addGenreIdsToDB(Film film) {
+    private Set<Integer> getGenreIds(Film film) {
+        Set<Integer> genreIds = new TreeSet<>();
         if (film.getGenres() != null) {
             for (Genre genre : film.getGenres()) {
-                jdbcTemplate.update(ADD_FILM_GENRE, film.getId(), genre.getId());
+                genreIds.add(genre.getId());
             }
         }
+        return genreIds;
+    }
+
+    private void setGenresFromCache(Film film, Set<Integer> genreIds) {
+        Set<Genre> genres = new LinkedHashSet<>();
+        for (int genreId : genreIds) {
+            genreStorage.findById(genreId).ifPresent(genres::add);
+        }
+        film.setGenres(genres);
+    }
+
+    private void addGenreIdsToDB(long filmId, Collection<Integer> genreIds) {
+        if (!genreIds.isEmpty()) {
+            jdbcTemplate.batchUpdate(ADD_FILM_GENRE, genreIds, genreIds.size(), (stmt, genreId) -> {
+                stmt.setLong(1, filmId);
+                stmt.setInt(2, genreId);
+            });
+        }
+    }
+
+    private void deleteGenreIdsFromDB(long filmId, Collection<Integer> genreIds) {
+        if (!genreIds.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_FILM_GENRE, genreIds, genreIds.size(), (stmt, genreId) -> {
+                stmt.setLong(1, filmId);
+                stmt.setInt(2, genreId);
+            });
+        }
     }
 
     private Film mapRowToFilm(ResultSet resultSet, int rowNum) throws SQLException {
@@ -161,7 +422,10 @@ public class FilmDbStorage implements FilmStorage {
                 .description(resultSet.getString("description"))
                 .duration(resultSet.getInt("duration"))
                 .releaseDate(resultSet.getDate("release_date").toLocalDate())
-                .mpa(mpaStorage.findById(resultSet.getInt("rating_id")).get())
+                .mpa(MPA.builder()
+                        .id(resultSet.getInt("rating_id"))
+                        .name(resultSet.getString("rating_name"))
+                        .build())
                 .likes_count(resultSet.getLong("likes_count"))
                 .build();
     }
@@ -1,12 +1,43 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Like;
 import ru.yandex.practicum.filmorate.storage.Storage;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
 public interface FilmStorage extends Storage<Film> {
 
     boolean removeLikeFromFilm(long id, long userId);
 
     boolean addLikeToFilm(long id, long userId);
 
+    List<Film> findTopLikableFilms(long count);
+
+    List<Film> findAll(long after, int limit);
+
+    /**
+     * @return the existing films among the given ids, in ascending id order
+     */
+    List<Film> findAllById(Collection<Long> ids);
+
+    void streamAll(Consumer<Film> action);
+
+    void streamLikes(Consumer<Like> action);
+
+    List<Film> createAll(List<Film> films);
+
+    /**
+     * Adds likes in bulk and returns, in input order, whether each like was added.
+     * A like is skipped when its film or user does not exist or it is already present.
+     */
+    List<Boolean> addLikes(List<Like> likes);
+
+    /**
+     * Removes likes in bulk and returns, in input order, whether each like was removed.
+     */
+    List<Boolean> removeLikes(List<Like> likes);
+
 }
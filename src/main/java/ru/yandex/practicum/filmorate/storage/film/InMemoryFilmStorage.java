@@ -3,32 +3,47 @@ package ru.yandex.practicum.filmorate.storage.film;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.storage.LongSet;
 import ru.yandex.practicum.filmorate.storage.genre.InMemoryGenreStorage;
 import ru.yandex.practicum.filmorate.storage.mpa.InMemoryMPAStorage;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+/**
+ * Thread-safe in-memory storage. Films are kept in a skip list so that paging by id stays ordered.
+ * Every change to a film's likes, and every replacement or removal of the film itself, runs inside
+ * {@link ConcurrentMap#compute} on the film's key of the likes map, which serializes writers of
+ * the same film only, so the like set and {@code likes_count} always agree and a deleted film
+ * keeps no likes. User ids are held in primitive {@link LongSet}s rather than boxed sets.
+ */
 @Component
 public class InMemoryFilmStorage implements FilmStorage {
 
     private final InMemoryGenreStorage genreStorage;
     private final InMemoryMPAStorage mpaStorage;
 
-    private final Map<Long, Film> films;
-    private final Map<Long, Set<Long>> likes;
-    private static long filmId;
+    private final ConcurrentNavigableMap<Long, Film> films;
+    private final ConcurrentMap<Long, LongSet> likes;
+    private final AtomicLong filmId = new AtomicLong();
 
     public InMemoryFilmStorage(InMemoryGenreStorage genreStorage,
                                InMemoryMPAStorage mpaStorage) {
         this.genreStorage = genreStorage;
         this.mpaStorage = mpaStorage;
-        films = new HashMap<>();
-        likes = new HashMap<>();
+        films = new ConcurrentSkipListMap<>();
+        likes = new ConcurrentHashMap<>();
     }
 
     private long generateId() {
-        return ++filmId;
+        return filmId.incrementAndGet();
     }
 
     private void validateRating(Film film) {
@@ -61,14 +76,28 @@ public class InMemoryFilmStorage implements FilmStorage {
         return film;
     }
 
+    @Override
+    public List<Film> createAll(List<Film> films) {
+        films.forEach(this::create);
+        return films;
+    }
+
     @Override
     public Optional<Film> update(Film film) {
         if (films.containsKey(film.getId())) {
             validateRating(film);
             validateGenres(film);
 
-            films.put(film.getId(), film);
-            return Optional.of(film);
+            boolean[] isUpdated = new boolean[1];
+            likes.compute(film.getId(), (id, filmLikes) -> {
+                if (films.containsKey(id)) {
+                    film.setLikes_count(filmLikes == null ? 0 : filmLikes.size());
+                    films.put(id, film);
+                    isUpdated[0] = true;
+                }
+                return filmLikes;
+            });
+            return isUpdated[0] ? Optional.of(film) : Optional.empty();
         }
         return Optional.empty();
     }
@@ -78,36 +107,127 @@ public class InMemoryFilmStorage implements FilmStorage {
         return new ArrayList<>(films.values());
     }
 
+    @Override
+    public List<Film> findAll(long after, int limit) {
+        return films.tailMap(after, false).values().stream()
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Film> findAllById(Collection<Long> ids) {
+        return ids.stream()
+                .distinct()
+                .sorted()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void streamAll(Consumer<Film> action) {
+        films.values().forEach(action);
+    }
+
+    @Override
+    public void streamLikes(Consumer<Like> action) {
+        likes.forEach((filmId, filmLikes) -> filmLikes.forEach(userId -> action.accept(Like.builder()
+                .filmId(filmId)
+                .userId(userId)
+                .build())));
+    }
+
     @Override
     public Optional<Film> findById(long id) {
         return Optional.ofNullable(films.get(id));
     }
 
+    @Override
+    public boolean existsById(long id) {
+        return films.containsKey(id);
+    }
+
     @Override
     public boolean deleteById(long id) {
-        return films.remove(id) != null;
+        boolean[] isDeleted = new boolean[1];
+        likes.compute(id, (filmId, filmLikes) -> {
+            isDeleted[0] = films.remove(filmId) != null;
+            return null;
+        });
+        return isDeleted[0];
     }
 
     @Override
     public boolean removeLikeFromFilm(long id, long userId) {
-        if (likes.containsKey(id)) {
-            likes.get(id).remove(userId);
-            films.get(id).setLikes_count(likes.get(id).size());
-            return true;
+        if (userId <= 0) {
+            return false;
         }
-        return false;
+        boolean[] isRemoved = new boolean[1];
+        likes.computeIfPresent(id, (filmId, filmLikes) -> {
+            isRemoved[0] = filmLikes.remove(userId);
+            updateLikesCount(filmId, filmLikes);
+            return filmLikes.isEmpty() ? null : filmLikes;
+        });
+        return isRemoved[0];
     }
 
     @Override
     public boolean addLikeToFilm(long id, long userId) {
-        if (likes.containsKey(id)) {
-            likes.get(id).add(userId);
-        } else {
-            Set<Long> filmLikes = new HashSet<>();
-            filmLikes.add(userId);
-            likes.put(id, filmLikes);
+        if (userId <= 0 || !films.containsKey(id)) {
+            return false;
+        }
+        boolean[] isAdded = new boolean[1];
+        likes.compute(id, (filmId, filmLikes) -> {
+            if (!films.containsKey(filmId)) {
+                return filmLikes;
+            }
+            LongSet result = filmLikes == null ? new LongSet() : filmLikes;
+            isAdded[0] = result.add(userId);
+            updateLikesCount(filmId, result);
+            return result;
+        });
+        return isAdded[0];
+    }
+
+    private void updateLikesCount(long id, LongSet filmLikes) {
+        Film film = films.get(id);
+        if (film != null) {
+            film.setLikes_count(filmLikes.size());
+        }
+    }
+
+    @Override
+    public List<Boolean> addLikes(List<Like> newLikes) {
+        List<Boolean> added = new ArrayList<>(newLikes.size());
+        for (Like like : newLikes) {
+            added.add(addLikeToFilm(like.getFilmId(), like.getUserId()));
+        }
+        return added;
+    }
+
+    @Override
+    public List<Boolean> removeLikes(List<Like> oldLikes) {
+        List<Boolean> removed = new ArrayList<>(oldLikes.size());
+        for (Like like : oldLikes) {
+            removed.add(removeLikeFromFilm(like.getFilmId(), like.getUserId()));
+        }
+        return removed;
+    }
+
+    @Override
+    public List<Film> findTopLikableFilms(long count) {
+        Comparator<Film> popularity = Comparator.comparingLong(Film::getLikes_count)
+                .thenComparing(Film::getId, Comparator.reverseOrder());
+        // Min-heap holding the most popular films seen so far, least popular on top
+        PriorityQueue<Film> top = new PriorityQueue<>(popularity);
+        for (Film film : films.values()) {
+            top.offer(film);
+            if (top.size() > count) {
+                top.poll();
+            }
         }
-        films.get(id).setLikes_count(likes.get(id).size());
-        return true;
+        List<Film> result = new ArrayList<>(top);
+        result.sort(popularity.reversed());
+        return result;
     }
 }
@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.storage.genre;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.CachedReferenceStorage;
+
+@Component
+public class CachedGenreStorage extends CachedReferenceStorage<Genre> implements GenreStorage {
+
+    public CachedGenreStorage(@Qualifier("genreDbStorage") GenreStorage storage,
+                              @Value("${filmorate.cache.reference.max-size:1024}") int maxSize) {
+        super(storage, Genre::getId, maxSize);
+    }
+}
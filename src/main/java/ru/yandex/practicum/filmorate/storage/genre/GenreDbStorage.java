@@ -20,6 +20,7 @@ public class GenreDbStorage implements GenreStorage {
     private static final String CREATE_GENRE = "INSERT INTO genres(name) VALUES (?)";
     private static final String UPDATE_GENRE = "UPDATE genres SET name = ? WHERE genre_id = ?";
     private static final String FIND_GENRE = "SELECT * FROM genres where genre_id = ?";
+    private static final String GENRE_EXISTS = "SELECT EXISTS (SELECT 1 FROM genres WHERE genre_id = ?)";
     private static final String FIND_ALL_GENRES = "SELECT * FROM genres ORDER BY genre_id";
     private static final String DELETE_GENRE = "DELETE FROM genres where genre_id = ?";
 
@@ -60,6 +61,11 @@ public class GenreDbStorage implements GenreStorage {
         }
     }
 
+    @Override
+    public boolean existsById(long id) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(GENRE_EXISTS, Boolean.class, id));
+    }
+
     @Override
     public boolean deleteById(long id) {
         return jdbcTemplate.update(DELETE_GENRE, id) > 0;
@@ -5,32 +5,34 @@ import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Genre;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Component
 public class InMemoryGenreStorage implements GenreStorage {
 
     @Getter
     private final Map<Integer, Genre> genres;
-    private static int genreId;
+    private final AtomicInteger genreId = new AtomicInteger();
 
     public InMemoryGenreStorage() {
-        genres = new HashMap<>();
-        genres.put(generateId(), Genre.builder().id(genreId).name("Комедия").build());
-        genres.put(generateId(), Genre.builder().id(genreId).name("Драма").build());
-        genres.put(generateId(), Genre.builder().id(genreId).name("Мультфильм").build());
-        genres.put(generateId(), Genre.builder().id(genreId).name("Триллер").build());
-        genres.put(generateId(), Genre.builder().id(genreId).name("Документальный").build());
-        genres.put(generateId(), Genre.builder().id(genreId).name("Боевик").build());
+        genres = new ConcurrentHashMap<>();
+        genres.put(generateId(), Genre.builder().id(genreId.get()).name("Комедия").build());
+        genres.put(generateId(), Genre.builder().id(genreId.get()).name("Драма").build());
+        genres.put(generateId(), Genre.builder().id(genreId.get()).name("Мультфильм").build());
+        genres.put(generateId(), Genre.builder().id(genreId.get()).name("Триллер").build());
+        genres.put(generateId(), Genre.builder().id(genreId.get()).name("Документальный").build());
+        genres.put(generateId(), Genre.builder().id(genreId.get()).name("Боевик").build());
     }
 
     private int generateId() {
-        return ++genreId;
+        return genreId.incrementAndGet();
     }
 
     @Override
     public Genre create(Genre genre) {
         genre.setId(generateId());
-        genres.put(genreId, genre);
+        genres.put(genre.getId(), genre);
         return genre;
     }
 
@@ -50,11 +52,16 @@ public class InMemoryGenreStorage implements GenreStorage {
 
     @Override
     public Optional<Genre> findById(long id) {
-        return Optional.ofNullable(genres.get(id));
+        return Optional.ofNullable(genres.get((int) id));
+    }
+
+    @Override
+    public boolean existsById(long id) {
+        return genres.containsKey((int) id);
     }
 
     @Override
     public boolean deleteById(long id) {
-        return genres.remove(id) != null;
+        return genres.remove((int) id) != null;
     }
 }
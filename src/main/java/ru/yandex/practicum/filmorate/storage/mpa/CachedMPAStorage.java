@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.storage.mpa;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.MPA;
+import ru.yandex.practicum.filmorate.storage.CachedReferenceStorage;
+
+@Component
+public class CachedMPAStorage extends CachedReferenceStorage<MPA> implements MPAStorage {
+
+    public CachedMPAStorage(@Qualifier("MPADbStorage") MPAStorage storage,
+                            @Value("${filmorate.cache.reference.max-size:1024}") int maxSize) {
+        super(storage, MPA::getId, maxSize);
+    }
+}
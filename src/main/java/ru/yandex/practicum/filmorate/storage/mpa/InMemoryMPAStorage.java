@@ -5,32 +5,34 @@ import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.MPA;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Component
 public class InMemoryMPAStorage implements MPAStorage {
 
     @Getter
     private final Map<Integer, MPA> ratings;
-    private static int mpaId;
+    private final AtomicInteger mpaId = new AtomicInteger();
 
     public InMemoryMPAStorage() {
-        ratings = new HashMap<>();
-        ratings.put(generateId(), MPA.builder().id(mpaId).name("G").build());
-        ratings.put(generateId(), MPA.builder().id(mpaId).name("PG").build());
-        ratings.put(generateId(), MPA.builder().id(mpaId).name("PG-13").build());
-        ratings.put(generateId(), MPA.builder().id(mpaId).name("R").build());
-        ratings.put(generateId(), MPA.builder().id(mpaId).name("NC-17").build());
+        ratings = new ConcurrentHashMap<>();
+        ratings.put(generateId(), MPA.builder().id(mpaId.get()).name("G").build());
+        ratings.put(generateId(), MPA.builder().id(mpaId.get()).name("PG").build());
+        ratings.put(generateId(), MPA.builder().id(mpaId.get()).name("PG-13").build());
+        ratings.put(generateId(), MPA.builder().id(mpaId.get()).name("R").build());
+        ratings.put(generateId(), MPA.builder().id(mpaId.get()).name("NC-17").build());
     }
 
     private int generateId() {
-        return ++mpaId;
+        return mpaId.incrementAndGet();
     }
 
 
     @Override
     public MPA create(MPA mpa) {
         mpa.setId(generateId());
-        ratings.put(mpaId, mpa);
+        ratings.put(mpa.getId(), mpa);
         return mpa;
     }
 
@@ -50,11 +52,16 @@ public class InMemoryMPAStorage implements MPAStorage {
 
     @Override
     public Optional<MPA> findById(long id) {
-        return Optional.ofNullable(ratings.get(id));
+        return Optional.ofNullable(ratings.get((int) id));
+    }
+
+    @Override
+    public boolean existsById(long id) {
+        return ratings.containsKey((int) id);
     }
 
     @Override
     public boolean deleteById(long id) {
-        return ratings.remove(id) != null;
+        return ratings.remove((int) id) != null;
     }
 }
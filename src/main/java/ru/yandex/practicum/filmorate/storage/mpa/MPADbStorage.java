@@ -20,6 +20,7 @@ public class MPADbStorage implements MPAStorage {
     private static final String CREATE_MPA = "INSERT INTO ratings(name) VALUES (?)";
     private static final String UPDATE_MPA = "UPDATE ratings SET name = ? WHERE rating_id = ?";
     private static final String FIND_MPA = "SELECT * FROM ratings WHERE rating_id = ?";
+    private static final String MPA_EXISTS = "SELECT EXISTS (SELECT 1 FROM ratings WHERE rating_id = ?)";
     private static final String FIND_ALL_MPA = "SELECT * FROM ratings ORDER BY rating_id";
     private static final String DELETE_MPA = "DELETE FROM ratings WHERE rating_id = ?";
 
@@ -60,6 +61,11 @@ public class MPADbStorage implements MPAStorage {
         }
     }
 
+    @Override
+    public boolean existsById(long id) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(MPA_EXISTS, Boolean.class, id));
+    }
+
     @Override
     public boolean deleteById(long id) {
         return jdbcTemplate.update(DELETE_MPA, id) > 0;
@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.CachedEntityStorage;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Caches users by id. Friendships are not part of a cached user, so friend changes and the
+ * friend lists go straight to the delegate.
+ */
+@Component
+public class CachedUserStorage extends CachedEntityStorage<User> implements UserStorage {
+
+    private final UserStorage storage;
+
+    public CachedUserStorage(@Qualifier("userDbStorage") UserStorage storage,
+                             @Value("${filmorate.cache.entity.max-size:10000}") int maxSize,
+                             @Value("${filmorate.cache.entity.ttl:10m}") Duration ttl) {
+        super(storage, User::getId, CachedUserStorage::copy, maxSize, ttl);
+        this.storage = storage;
+    }
+
+    @Override
+    public boolean addToFriends(long id, long friendId) {
+        return storage.addToFriends(id, friendId);
+    }
+
+    @Override
+    public boolean deleteFromFriends(long id, long friendId) {
+        return storage.deleteFromFriends(id, friendId);
+    }
+
+    @Override
+    public List<User> getListOfFriends(long id) {
+        return storage.getListOfFriends(id);
+    }
+
+    @Override
+    public List<User> getListOfCommonFriends(long id, long otherId) {
+        return storage.getListOfCommonFriends(id, otherId);
+    }
+
+    @Override
+    public List<User> findAll(long after, int limit) {
+        return storage.findAll(after, limit);
+    }
+
+    @Override
+    public List<User> findAllById(Collection<Long> ids) {
+        return findAllById(ids, storage::findAllById);
+    }
+
+    @Override
+    public void streamAll(Consumer<User> action) {
+        storage.streamAll(action);
+    }
+
+    @Override
+    public void streamFriendships(Consumer<Friendship> action) {
+        storage.streamFriendships(action);
+    }
+
+    /**
+     * Bulk imports are not cached, so they do not push the entries that are actually read out.
+     */
+    @Override
+    public List<User> createAll(List<User> users) {
+        return storage.createAll(users);
+    }
+
+    private static User copy(User user) {
+        return User.builder()
+                .id(user.getId())
+                .email(user.getEmail())
+                .login(user.getLogin())
+                .name(user.getName())
+                .birthday(user.getBirthday())
+                .build();
+    }
+}
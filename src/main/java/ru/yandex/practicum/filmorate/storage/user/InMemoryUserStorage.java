@@ -1,41 +1,55 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.LongSet;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+/**
+ * Thread-safe in-memory storage. Users are kept in a skip list so that paging by id stays ordered;
+ * friend ids are held in primitive {@link LongSet}s created atomically on first use.
+ */
 @Component
 public class InMemoryUserStorage implements UserStorage {
 
-    private final Map<Long, User> users;
-    private final Map<Long, Set<Long>> friends;
-    private static long userId;
+    private final ConcurrentNavigableMap<Long, User> users;
+    private final ConcurrentMap<Long, LongSet> friends;
+    private final AtomicLong userId = new AtomicLong();
 
     public InMemoryUserStorage() {
-        users = new HashMap<>();
-        friends = new HashMap<>();
+        users = new ConcurrentSkipListMap<>();
+        friends = new ConcurrentHashMap<>();
     }
 
     private long generateId() {
-        return ++userId;
+        return userId.incrementAndGet();
     }
 
     @Override
     public User create(User user) {
         user.setId(generateId());
-        users.put(userId, user);
+        users.put(user.getId(), user);
         return user;
     }
 
+    @Override
+    public List<User> createAll(List<User> newUsers) {
+        newUsers.forEach(this::create);
+        return newUsers;
+    }
+
     @Override
     public Optional<User> update(User user) {
-        if (users.containsKey(user.getId())) {
-            users.put(user.getId(), user);
-            return Optional.of(user);
-        }
-        return Optional.empty();
+        return Optional.ofNullable(users.computeIfPresent(user.getId(), (id, stored) -> user));
     }
 
     @Override
@@ -43,41 +57,92 @@ public class InMemoryUserStorage implements UserStorage {
         return new ArrayList<>(users.values());
     }
 
+    @Override
+    public List<User> findAll(long after, int limit) {
+        return users.tailMap(after, false).values().stream()
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void streamAll(Consumer<User> action) {
+        users.values().forEach(action);
+    }
+
+    @Override
+    public List<User> findAllById(Collection<Long> ids) {
+        return ids.stream()
+                .distinct()
+                .sorted()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void streamFriendships(Consumer<Friendship> action) {
+        friends.forEach((id, userFriends) -> userFriends.forEach(friendId -> action.accept(Friendship.builder()
+                .userId(id)
+                .friendId(friendId)
+                .build())));
+    }
+
     @Override
     public Optional<User> findById(long id) {
         return Optional.ofNullable(users.get(id));
     }
 
+    @Override
+    public boolean existsById(long id) {
+        return users.containsKey(id);
+    }
+
     @Override
     public boolean deleteById(long id) {
+        friends.remove(id);
         return users.remove(id) != null;
     }
 
 
     @Override
     public boolean addToFriends(long id, long friendId) {
-        if (friends.containsKey(id)) {
-            return friends.get(id).add(friendId);
+        if (friendId <= 0) {
+            return false;
         }
-        Set<Long> userFriends = new HashSet<>();
-        userFriends.add(friendId);
-        friends.put(id, userFriends);
-        return true;
+        return friends.computeIfAbsent(id, key -> new LongSet()).add(friendId);
     }
 
     @Override
     public boolean deleteFromFriends(long id, long friendId) {
-        if (friends.containsKey(id)) {
-            return friends.get(id).remove(friendId);
-        }
-        return false;
+        LongSet userFriends = friends.get(id);
+        return friendId > 0 && userFriends != null && userFriends.remove(friendId);
     }
 
     @Override
     public List<User> getListOfFriends(long id) {
-        if (friends.containsKey(id)) {
-            return friends.get(id).stream().map(users::get).collect(Collectors.toList());
+        LongSet userFriends = friends.get(id);
+        if (userFriends == null) {
+            return new ArrayList<>();
+        }
+        return Arrays.stream(userFriends.toArray())
+                .mapToObj(users::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<User> getListOfCommonFriends(long id, long otherId) {
+        LongSet userFriends = friends.get(id);
+        LongSet otherFriends = friends.get(otherId);
+        if (userFriends == null || otherFriends == null) {
+            return new ArrayList<>();
         }
-        return new ArrayList<>();
+        LongSet smaller = userFriends.size() <= otherFriends.size() ? userFriends : otherFriends;
+        LongSet larger = smaller == userFriends ? otherFriends : userFriends;
+        return Arrays.stream(smaller.toArray())
+                .filter(larger::contains)
+                .mapToObj(users::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
     }
 }
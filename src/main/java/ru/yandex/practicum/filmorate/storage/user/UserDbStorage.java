@@ -1,42 +1,62 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Component
 public class UserDbStorage implements UserStorage {
+    private static final int STREAM_FETCH_SIZE = 500;
+    private static final int BATCH_SIZE = 500;
+
     private final JdbcTemplate jdbcTemplate;
     private static final String CREATE_USER = "INSERT INTO users(email, login, name, birthday) VALUES (?, ?, ?, ?)";
+    private static final String CREATE_USER_IF_ABSENT = "INSERT INTO users(email, login, name, birthday) " +
+            "SELECT ?, ?, ?, ? FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM users WHERE email = ?) " +
+            "AND NOT EXISTS (SELECT 1 FROM users WHERE login = ?)";
     private static final String UPDATE_USER = "UPDATE users SET email = ?, login = ?, name = ?, birthday = ? " +
             "WHERE user_id = ?";
     private static final String FIND_USER = "SELECT * FROM users WHERE user_id = ?";
-    private static final String FIND_ALL_USERS = "SELECT * FROM users";
+    private static final String USER_EXISTS = "SELECT EXISTS (SELECT 1 FROM users WHERE user_id = ?)";
+    private static final String FIND_ALL_USERS = "SELECT * FROM users ORDER BY user_id";
+    private static final String FIND_USERS_BY_IDS = "SELECT * FROM users WHERE user_id IN (%s) ORDER BY user_id";
+    private static final String FIND_USERS_PAGE = "SELECT * FROM users WHERE user_id > ? ORDER BY user_id LIMIT ?";
     private static final String DELETE_USER = "DELETE FROM users WHERE user_id = ?";
-    private static final String GET_FRIENDS = "SELECT * FROM friendship f LEFT JOIN users u " +
-            "ON f.to_user_id = u.user_id WHERE from_user_id = ? UNION SELECT * FROM friendship f " +
-            "LEFT JOIN users u ON f.from_user_id = u.user_id WHERE to_user_id = ? AND accepted = ?";
-    private static final String UPDATE_FRIENDS = "UPDATE friendship SET accepted = ? WHERE (to_user_id = ? " +
-            "AND from_user_id = ?) OR (to_user_id = ? AND from_user_id = ?)";
-    private static final String DELETE_FRIEND = "DELETE FROM friendship WHERE (from_user_id = ? AND to_user_id = ?) " +
-            "OR (from_user_id = ? AND to_user_id = ?)";
-    private static final String ADD_FRIEND = "INSERT INTO friendship(to_user_id, from_user_id, accepted) " +
+    private static final String DECREMENT_LIKES_COUNT_OF_USER = "UPDATE films SET likes_count = likes_count - 1 " +
+            "WHERE film_id IN (SELECT film_id FROM films_likes WHERE user_id = ?)";
+    public static final String GET_FRIENDS = "SELECT u.* FROM friendship f JOIN users u " +
+            "ON f.to_user_id = u.user_id WHERE f.from_user_id = ? ORDER BY u.user_id";
+    public static final String GET_COMMON_FRIENDS = "SELECT u.* FROM friendship f JOIN friendship o " +
+            "ON f.to_user_id = o.to_user_id JOIN users u ON f.to_user_id = u.user_id " +
+            "WHERE f.from_user_id = ? AND o.from_user_id = ? ORDER BY u.user_id";
+    public static final String HAS_FRIEND = "SELECT COUNT(*) FROM friendship WHERE from_user_id = ? " +
+            "AND to_user_id = ?";
+    private static final String ADD_FRIEND = "INSERT INTO friendship(from_user_id, to_user_id, accepted) " +
             "VALUES (?, ?, ?)";
-    private static final String HAS_CONNECTION = "SELECT * FROM friendship WHERE (from_user_id = ? " +
-            "AND to_user_id = ?) OR (from_user_id = ? AND to_user_id = ?)";
-    private static final String HAS_MUTUAL_CONNECTION = "SELECT * FROM friendship WHERE (from_user_id = ? " +
-            "AND to_user_id = ? AND accepted = ?) OR (from_user_id = ? AND to_user_id = ? AND accepted = ?)";
+    public static final String DELETE_FRIEND = "DELETE FROM friendship WHERE from_user_id = ? AND to_user_id = ?";
+    public static final String SET_ACCEPTED = "UPDATE friendship SET accepted = ? WHERE from_user_id = ? " +
+            "AND to_user_id = ?";
+    private static final String STREAM_FRIENDSHIPS = "SELECT from_user_id, to_user_id FROM friendship";
 
 
     public UserDbStorage(JdbcTemplate jdbcTemplate) {
@@ -59,6 +79,41 @@ public class UserDbStorage implements UserStorage {
         return user;
     }
 
+    @Override
+    @Transactional
+    public List<User> createAll(List<User> users) {
+        List<User> created = new ArrayList<>();
+        for (int from = 0; from < users.size(); from += BATCH_SIZE) {
+            List<User> chunk = users.subList(from, Math.min(from + BATCH_SIZE, users.size()));
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                try (PreparedStatement stmt = connection.prepareStatement(CREATE_USER_IF_ABSENT,
+                        new String[]{"user_id"})) {
+                    for (User user : chunk) {
+                        stmt.setString(1, user.getEmail());
+                        stmt.setString(2, user.getLogin());
+                        stmt.setString(3, user.getName());
+                        stmt.setDate(4, Date.valueOf(user.getBirthday()));
+                        stmt.setString(5, user.getEmail());
+                        stmt.setString(6, user.getLogin());
+                        stmt.addBatch();
+                    }
+                    int[] updateCounts = stmt.executeBatch();
+                    try (ResultSet keys = stmt.getGeneratedKeys()) {
+                        for (int i = 0; i < updateCounts.length; i++) {
+                            if (updateCounts[i] > 0 && keys.next()) {
+                                User user = chunk.get(i);
+                                user.setId(keys.getLong(1));
+                                created.add(user);
+                            }
+                        }
+                    }
+                }
+                return null;
+            });
+        }
+        return created;
+    }
+
     @Override
     public Optional<User> update(User user) {
         boolean isUpdated = jdbcTemplate.update(UPDATE_USER,
@@ -77,7 +132,15 @@ public class UserDbStorage implements UserStorage {
     }
 
     @Override
+    public boolean existsById(long id) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(USER_EXISTS, Boolean.class, id));
+    }
+
+    @Override
+    @Transactional
     public boolean deleteById(long id) {
+        // The user's likes are dropped by cascade, so the counts kept from them are lowered first
+        jdbcTemplate.update(DECREMENT_LIKES_COUNT_OF_USER, id);
         return jdbcTemplate.update(DELETE_USER, id) > 0;
     }
 
@@ -86,6 +149,46 @@ public class UserDbStorage implements UserStorage {
         return jdbcTemplate.query(FIND_ALL_USERS, this::mapRowToUser);
     }
 
+    @Override
+    public List<User> findAll(long after, int limit) {
+        return jdbcTemplate.query(FIND_USERS_PAGE, this::mapRowToUser, after, limit);
+    }
+
+    @Override
+    public void streamAll(Consumer<User> action) {
+        PreparedStatementCreator statementCreator = connection -> {
+            PreparedStatement stmt = connection.prepareStatement(FIND_ALL_USERS);
+            stmt.setFetchSize(STREAM_FETCH_SIZE);
+            return stmt;
+        };
+        RowCallbackHandler usersHandler = resultSet -> action.accept(mapRowToUser(resultSet, resultSet.getRow()));
+        jdbcTemplate.query(statementCreator, usersHandler);
+    }
+
+    @Override
+    public List<User> findAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        return jdbcTemplate.query(String.format(FIND_USERS_BY_IDS, placeholders), this::mapRowToUser,
+                ids.toArray());
+    }
+
+    @Override
+    public void streamFriendships(Consumer<Friendship> action) {
+        PreparedStatementCreator statementCreator = connection -> {
+            PreparedStatement stmt = connection.prepareStatement(STREAM_FRIENDSHIPS);
+            stmt.setFetchSize(STREAM_FETCH_SIZE);
+            return stmt;
+        };
+        RowCallbackHandler friendshipsHandler = resultSet -> action.accept(Friendship.builder()
+                .userId(resultSet.getLong("from_user_id"))
+                .friendId(resultSet.getLong("to_user_id"))
+                .build());
+        jdbcTemplate.query(statementCreator, friendshipsHandler);
+    }
+
     @Override
     public Optional<User> findById(long id) {
         try {
@@ -98,47 +201,48 @@ public class UserDbStorage implements UserStorage {
 
     @Override
     public List<User> getListOfFriends(long id) {
-        return jdbcTemplate.query(GET_FRIENDS, this::mapRowToUser, id, id, true);
-    }
-
-    private boolean hasMutualConnection(long id, long friendId) {
-        SqlRowSet sqlRowSet = jdbcTemplate.queryForRowSet(HAS_MUTUAL_CONNECTION, id, friendId, true,
-                friendId, id, true);
-        return sqlRowSet.next();
+        return jdbcTemplate.query(GET_FRIENDS, this::mapRowToUser, id);
     }
 
-    private boolean hasConnection(long id, long friendId) {
-        SqlRowSet sqlRowSet = jdbcTemplate.queryForRowSet(HAS_CONNECTION, id, friendId, friendId, id);
-        return sqlRowSet.next();
-    }
-
-    private boolean addConnection(long id, long friendId) {
-        return jdbcTemplate.update(ADD_FRIEND, friendId, id, false) > 0;
-    }
-
-    private boolean deleteConnection(long id, long friendId) {
-        return jdbcTemplate.update(DELETE_FRIEND, id, friendId, friendId, id) > 0;
+    @Override
+    public List<User> getListOfCommonFriends(long id, long otherId) {
+        return jdbcTemplate.query(GET_COMMON_FRIENDS, this::mapRowToUser, id, otherId);
     }
 
+    /**
+     * Every row is a directed edge: to_user_id is in the friend list of from_user_id.
+     * accepted mirrors whether the reverse edge exists, so a request becomes accepted
+     * once the other user adds it back.
+     */
     @Override
+    @Transactional
     public boolean addToFriends(long id, long friendId) {
-        if (hasConnection(id, friendId)) {
-            return jdbcTemplate.update(UPDATE_FRIENDS, true, id, friendId, friendId, id) > 0;
-        } else {
-            return addConnection(id, friendId);
+        if (hasFriend(id, friendId)) {
+            return true;
+        }
+        boolean isMutual = jdbcTemplate.update(SET_ACCEPTED, true, friendId, id) > 0;
+        try {
+            return jdbcTemplate.update(ADD_FRIEND, id, friendId, isMutual) > 0;
+        } catch (DuplicateKeyException e) {
+            return true;
         }
     }
 
     @Override
+    @Transactional
     public boolean deleteFromFriends(long id, long friendId) {
-        boolean isMutual = hasMutualConnection(id, friendId);
-        boolean isDeleted = deleteConnection(id, friendId);
-        if (isMutual) {
-            addConnection(friendId, id);
+        boolean isDeleted = jdbcTemplate.update(DELETE_FRIEND, id, friendId) > 0;
+        if (isDeleted) {
+            jdbcTemplate.update(SET_ACCEPTED, false, friendId, id);
         }
         return isDeleted;
     }
 
+    private boolean hasFriend(long id, long friendId) {
+        Long count = jdbcTemplate.queryForObject(HAS_FRIEND, Long.class, id, friendId);
+        return count != null && count > 0;
+    }
+
     private User mapRowToUser(ResultSet resultSet, int rowNum) throws SQLException {
 
         return User.builder()
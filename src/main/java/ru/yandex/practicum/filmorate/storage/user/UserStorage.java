@@ -1,9 +1,12 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.Storage;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface UserStorage extends Storage<User> {
 
@@ -13,4 +16,23 @@ public interface UserStorage extends Storage<User> {
 
     List<User> getListOfFriends(long id);
 
+    List<User> getListOfCommonFriends(long id, long otherId);
+
+    List<User> findAll(long after, int limit);
+
+    /**
+     * @return the existing users in ascending id order
+     */
+    List<User> findAllById(Collection<Long> ids);
+
+    void streamAll(Consumer<User> action);
+
+    void streamFriendships(Consumer<Friendship> action);
+
+    /**
+     * Creates users in bulk and returns the created ones. Users whose email or login
+     * is already taken are skipped and keep id 0.
+     */
+    List<User> createAll(List<User> users);
+
 }
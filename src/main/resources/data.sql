@@ -1,12 +1,12 @@
-INSERT INTO genres (name) VALUES ('Комедия'),
-                                 ('Драма'),
-                                 ('Мультфильм'),
-                                 ('Триллер'),
-                                 ('Документальный'),
-                                 ('Боевик');
+MERGE INTO genres (name) KEY (name) VALUES ('Комедия'),
+                                           ('Драма'),
+                                           ('Мультфильм'),
+                                           ('Триллер'),
+                                           ('Документальный'),
+                                           ('Боевик');
 
-INSERT INTO ratings (name) VALUES ('G'),
-                                  ('PG'),
-                                  ('PG-13'),
-                                  ('R'),
-                                  ('NC-17');
\ No newline at end of file
+MERGE INTO ratings (name) KEY (name) VALUES ('G'),
+                                            ('PG'),
+                                            ('PG-13'),
+                                            ('R'),
+                                            ('NC-17');
\ No newline at end of file
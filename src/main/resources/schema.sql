@@ -1,39 +1,33 @@
-DROP TABLE IF EXISTS ratings CASCADE;
-DROP TABLE IF EXISTS films CASCADE;
-DROP TABLE IF EXISTS genres CASCADE;
-DROP TABLE IF EXISTS films_genres CASCADE;
-DROP TABLE IF EXISTS users CASCADE;
-DROP TABLE IF EXISTS friendship CASCADE;
-DROP TABLE IF EXISTS films_likes CASCADE;
-
-CREATE TABLE ratings (
+CREATE TABLE IF NOT EXISTS ratings (
     rating_id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     name VARCHAR(15) NOT NULL UNIQUE
 );
 
-CREATE TABLE films (
+CREATE TABLE IF NOT EXISTS films (
     film_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     name VARCHAR(200) NOT NULL,
     description VARCHAR(200) NOT NULL,
     duration INTEGER NOT NULL,
     release_date DATE,
     rating_id INTEGER REFERENCES ratings (rating_id) ON DELETE RESTRICT,
-    likes_count BIGINT,
+    likes_count BIGINT NOT NULL DEFAULT 0,
     CHECK (name <> '' AND duration > 0)
 );
 
-CREATE TABLE genres (
+CREATE INDEX IF NOT EXISTS films_likes_count_idx ON films (likes_count DESC, film_id);
+
+CREATE TABLE IF NOT EXISTS genres (
     genre_id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     name VARCHAR(50) NOT NULL UNIQUE
 );
 
-CREATE TABLE films_genres (
+CREATE TABLE IF NOT EXISTS films_genres (
     film_id BIGINT REFERENCES films (film_id) ON DELETE CASCADE,
     genre_id INTEGER REFERENCES genres (genre_id) ON DELETE CASCADE,
     PRIMARY KEY (film_id, genre_id)
 );
 
-CREATE TABLE users (
+CREATE TABLE IF NOT EXISTS users (
     user_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     email VARCHAR(255) NOT NULL UNIQUE,
     login VARCHAR(50) NOT NULL UNIQUE,
@@ -42,14 +36,16 @@ CREATE TABLE users (
     CHECK (email <> '' AND login <> '')
 );
 
-CREATE TABLE friendship (
-    to_user_id BIGINT REFERENCES users (user_id) ON DELETE CASCADE,
+CREATE TABLE IF NOT EXISTS friendship (
     from_user_id BIGINT REFERENCES users (user_id) ON DELETE CASCADE,
-    accepted BOOLEAN,
-    PRIMARY KEY (to_user_id, from_user_id)
+    to_user_id BIGINT REFERENCES users (user_id) ON DELETE CASCADE,
+    accepted BOOLEAN NOT NULL DEFAULT FALSE,
+    PRIMARY KEY (from_user_id, to_user_id)
 );
 
-CREATE TABLE films_likes (
+CREATE INDEX IF NOT EXISTS friendship_to_user_idx ON friendship (to_user_id);
+
+CREATE TABLE IF NOT EXISTS films_likes (
     film_id BIGINT REFERENCES films (film_id) ON DELETE CASCADE,
     user_id BIGINT REFERENCES users (user_id) ON DELETE CASCADE,
     PRIMARY KEY (film_id, user_id)
@@ -0,0 +1,262 @@
+package ru.yandex.practicum.filmorate.dbIntegrationTest;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.metrics.SqlStatementCounter;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MPA;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.film.CachedFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.genre.CachedGenreStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.CachedMPAStorage;
+import ru.yandex.practicum.filmorate.storage.user.CachedUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class CachedEntityStorageTest {
+
+    private final FilmService filmService;
+    private final UserService userService;
+    private final CachedFilmStorage filmCache;
+    private final CachedUserStorage userCache;
+    private final CachedGenreStorage genreStorage;
+    private final CachedMPAStorage mpaStorage;
+    private final FilmDbStorage filmStorage;
+    private final UserDbStorage userStorage;
+    private final SqlStatementCounter statementCounter;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testRepeatedReadsAreServedFromCache() {
+        // Given
+        createUsersAndFilm();
+        filmService.findFilmById(1);
+        userService.findUserById(1);
+        long statements = statementCounter.current();
+        long hits = filmCache.getHits() + userCache.getHits();
+        // When
+        Film film = filmService.findFilmById(1).get();
+        User user = userService.findUserById(1).get();
+        boolean isUserFound = userService.existsById(1);
+        // Then
+        assertEquals(0, statementCounter.current() - statements);
+        assertEquals(hits + 3, filmCache.getHits() + userCache.getHits());
+        assertEquals("Film", film.getName());
+        assertEquals("Комедия", film.getGenres().iterator().next().getName());
+        assertEquals("User1", user.getLogin());
+        assertTrue(isUserFound);
+    }
+
+    @Test
+    public void testCachedEntitiesAreCopies() {
+        // Given
+        createUsersAndFilm();
+        // When
+        filmService.findFilmById(1).get().setName("Changed");
+        userService.findUserById(1).get().setName("Changed");
+        // Then
+        assertEquals("Film", filmService.findFilmById(1).get().getName());
+        assertEquals("User 1", userService.findUserById(1).get().getName());
+    }
+
+    @Test
+    public void testLikesAdjustCachedFilm() {
+        // Given
+        createUsersAndFilm();
+        filmService.findFilmById(1);
+        filmService.likeFilm(1, 1);
+        filmService.likeFilm(1, 2);
+        filmService.removeLikeFromFilm(1, 1);
+        long statements = statementCounter.current();
+        // When
+        Film film = filmService.findFilmById(1).get();
+        // Then
+        assertEquals(0, statementCounter.current() - statements);
+        assertEquals(filmStorage.findById(1).get().getLikes_count(), film.getLikes_count());
+        assertEquals(1, film.getLikes_count());
+    }
+
+    @Test
+    public void testUpdatesAndDeletesKeepCacheCoherent() {
+        // Given
+        createUsersAndFilm();
+        filmService.likeFilm(1, 2);
+        Film film = filmService.findFilmById(1).get();
+        film.setName("Updated");
+        film.setLikes_count(0);
+        User user = userService.findUserById(2).get();
+        user.setName("Updated");
+        // When
+        filmService.updateFilm(film);
+        userService.updateUser(user);
+        userService.deleteUserById(1);
+        // Then
+        assertEquals("Updated", filmService.findFilmById(1).get().getName());
+        assertEquals(1, filmService.findFilmById(1).get().getLikes_count());
+        assertEquals("Updated", userService.findUserById(2).get().getName());
+        assertTrue(userService.findUserById(1).isEmpty());
+        assertTrue(filmService.deleteFilmById(1));
+        assertTrue(filmService.findFilmById(1).isEmpty());
+    }
+
+    @Test
+    public void testFilmsAreReloadedAfterGenreChange() {
+        // Given
+        createUsersAndFilm();
+        filmService.findFilmById(1);
+        // When
+        genreStorage.update(Genre.builder().id(1).name("Приключения").build());
+        // Then
+        assertEquals("Приключения", filmService.findFilmById(1).get().getGenres().iterator().next().getName());
+    }
+
+    @Test
+    public void testCacheIsBoundedAndEntriesExpire() {
+        // Given
+        for (int i = 1; i <= 50; i++) {
+            createUser(i);
+        }
+        CachedUserStorage boundedCache = new CachedUserStorage(userStorage, 16, Duration.ofMinutes(10));
+        CachedUserStorage expiringCache = new CachedUserStorage(userStorage, 16, Duration.ZERO);
+        // When
+        for (long id = 1; id <= 50; id++) {
+            boundedCache.findById(id);
+        }
+        expiringCache.findById(1);
+        expiringCache.findById(1);
+        // Then
+        assertEquals(16, boundedCache.getSize());
+        assertTrue(boundedCache.findById(50).isPresent());
+        assertEquals(1, boundedCache.getHits());
+        assertEquals(0, expiringCache.getHits());
+        assertEquals(2, expiringCache.getMisses());
+    }
+
+    @Test
+    public void testExistsByIdAnswersHitsAndDoesNotFillCacheOnMiss() {
+        // Given
+        createUser(1);
+        createUser(2);
+        CachedUserStorage cache = new CachedUserStorage(userStorage, 16, Duration.ofMinutes(10));
+        cache.findById(1);
+        long statements = statementCounter.current();
+        // When
+        boolean isCachedFound = cache.existsById(1);
+        long hitStatements = statementCounter.current() - statements;
+        boolean isUncachedFound = cache.existsById(2);
+        boolean isMissingFound = cache.existsById(3);
+        // Then
+        assertTrue(isCachedFound);
+        assertEquals(0, hitStatements);
+        assertTrue(isUncachedFound);
+        assertFalse(isMissingFound);
+        assertEquals(1, cache.getSize());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testFilmLoadedDuringLikeIsNotCountedTwice() throws Exception {
+        // Given
+        createUsersAndFilm();
+        CountDownLatch isLikeStored = new CountDownLatch(1);
+        CompletableFuture<Film> load = new CompletableFuture<>();
+        FilmDbStorage storage = new FilmDbStorage(jdbcTemplate, genreStorage, mpaStorage) {
+            @Override
+            public Optional<Film> findById(long id) {
+                try {
+                    isLikeStored.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.findById(id);
+            }
+
+            @Override
+            public boolean addLikeToFilm(long id, long userId) {
+                boolean isAdded = super.addLikeToFilm(id, userId);
+                isLikeStored.countDown();
+                load.join();
+                return isAdded;
+            }
+        };
+        CachedFilmStorage cache = new CachedFilmStorage(storage, genreStorage, mpaStorage, 16,
+                Duration.ofMinutes(10));
+        // When
+        CompletableFuture.supplyAsync(() -> cache.findById(1).get()).whenComplete((film, e) -> {
+            if (e != null) {
+                load.completeExceptionally(e);
+            } else {
+                load.complete(film);
+            }
+        });
+        cache.addLikeToFilm(1, 1);
+        // Then
+        long likes = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM films_likes WHERE film_id = ?",
+                Long.class, 1);
+        assertEquals(1, likes);
+        assertEquals(likes, load.get().getLikes_count());
+        assertEquals(likes, cache.findById(1).get().getLikes_count());
+    }
+
+    @Test
+    public void testCreatedFilmIsLoadedWithStoredLikes() {
+        // Given
+        Film film = Film.builder()
+                .name("Film")
+                .description("Description")
+                .duration(100)
+                .mpa(MPA.builder().id(1).build())
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .likes_count(42)
+                .build();
+        // When
+        filmCache.create(film);
+        // Then
+        assertEquals(0, filmCache.findById(1).get().getLikes_count());
+    }
+
+    private void createUsersAndFilm() {
+        for (int i = 1; i <= 2; i++) {
+            createUser(i);
+        }
+        filmService.createFilm(Film.builder()
+                .name("Film")
+                .description("Description")
+                .duration(100)
+                .mpa(MPA.builder().id(1).build())
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .genres(Set.of(Genre.builder().id(1).build()))
+                .build());
+    }
+
+    private void createUser(int i) {
+        userStorage.create(User.builder()
+                .email("user" + i + "@mail.ru")
+                .login("User" + i)
+                .name("User " + i)
+                .birthday(LocalDate.of(2000, 1, 1))
+                .build());
+    }
+}
@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.dbIntegrationTest;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.metrics.SqlStatementCounter;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MPA;
+import ru.yandex.practicum.filmorate.storage.genre.CachedGenreStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.CachedMPAStorage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class CachedReferenceStorageTest {
+
+    private final CachedGenreStorage genreStorage;
+    private final CachedMPAStorage mpaStorage;
+    private final SqlStatementCounter statementCounter;
+
+    @Test
+    public void testLookupsAreServedFromSnapshot() {
+        // Given
+        genreStorage.findAll();
+        mpaStorage.findAll();
+        long statements = statementCounter.current();
+        long genreHits = genreStorage.getHits();
+        long genreMisses = genreStorage.getMisses();
+        // When
+        for (int i = 1; i <= 6; i++) {
+            assertTrue(genreStorage.findById(i).isPresent());
+        }
+        assertEquals("PG-13", mpaStorage.findById(3).get().getName());
+        assertTrue(genreStorage.findById(10).isEmpty());
+        assertEquals(6, genreStorage.findAll().size());
+        // Then
+        assertEquals(0, statementCounter.current() - statements);
+        assertEquals(genreHits + 8, genreStorage.getHits());
+        assertEquals(genreMisses, genreStorage.getMisses());
+    }
+
+    @Test
+    public void testSnapshotIsInvalidatedOnWrite() {
+        // Given
+        assertEquals(5, mpaStorage.findAll().size());
+        long misses = mpaStorage.getMisses();
+        // When
+        MPA mpa = mpaStorage.create(MPA.builder().name("NR").build());
+        // Then
+        assertEquals("NR", mpaStorage.findById(mpa.getId()).get().getName());
+        assertEquals(6, mpaStorage.findAll().size());
+        assertEquals(misses + 1, mpaStorage.getMisses());
+    }
+
+    @Test
+    public void testSnapshotIsInvalidatedOnUpdateAndDelete() {
+        // Given
+        assertEquals("Комедия", genreStorage.findById(1).get().getName());
+        // When
+        genreStorage.update(Genre.builder().id(1).name("Приключения").build());
+        genreStorage.deleteById(2);
+        // Then
+        assertEquals("Приключения", genreStorage.findById(1).get().getName());
+        assertTrue(genreStorage.findById(2).isEmpty());
+        assertEquals(5, genreStorage.findAll().size());
+    }
+}
@@ -0,0 +1,133 @@
+package ru.yandex.practicum.filmorate.dbIntegrationTest;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.metrics.SqlStatementCounter;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.MPA;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class ConditionalGetTest {
+
+    private final MockMvc mockMvc;
+    private final FilmService filmService;
+    private final UserService userService;
+    private final SqlStatementCounter statementCounter;
+
+    @Test
+    public void testUnchangedFilmIsNotModifiedWithoutStorageAccess() throws Exception {
+        // Given
+        createUserAndFilm();
+        String eTag = mockMvc.perform(get("/films/1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        long statements = statementCounter.current();
+        // When
+        mockMvc.perform(get("/films/1").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+        // Then
+        assertNotNull(eTag);
+        assertEquals(0, statementCounter.current() - statements);
+    }
+
+    @Test
+    public void testLikeChangesFilmETag() throws Exception {
+        // Given
+        createUserAndFilm();
+        String eTag = mockMvc.perform(get("/films/1"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        // When
+        filmService.likeFilm(1, 1);
+        String newETag = mockMvc.perform(get("/films/1").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        // Then
+        assertNotEquals(eTag, newETag);
+    }
+
+    @Test
+    public void testUserUpdateChangesUserETag() throws Exception {
+        // Given
+        createUserAndFilm();
+        String eTag = mockMvc.perform(get("/users/1"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        User user = userService.findUserById(1).get();
+        user.setName("Renamed");
+        // When
+        mockMvc.perform(get("/users/1").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+        userService.updateUser(user);
+        // Then
+        mockMvc.perform(get("/users/1").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void testReferenceListsAreNotModified() throws Exception {
+        // Given
+        String genresETag = mockMvc.perform(get("/genres"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String mpaETag = mockMvc.perform(get("/mpa/1"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        // When
+        long statements = statementCounter.current();
+        mockMvc.perform(get("/genres").header(HttpHeaders.IF_NONE_MATCH, "W/" + genresETag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/mpa/1").header(HttpHeaders.IF_NONE_MATCH, "\"other\", " + mpaETag))
+                .andExpect(status().isNotModified());
+        // Then
+        assertEquals(0, statementCounter.current() - statements);
+    }
+
+    @Test
+    public void testAnyETagMatchesOnlyExistingEntities() throws Exception {
+        // Given
+        createUserAndFilm();
+        // When
+        mockMvc.perform(get("/films/1").header(HttpHeaders.IF_NONE_MATCH, "*"))
+                .andExpect(status().isNotModified());
+        // Then
+        mockMvc.perform(get("/films/2").header(HttpHeaders.IF_NONE_MATCH, "*"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/users/2").header(HttpHeaders.IF_NONE_MATCH, "*"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/genres/100").header(HttpHeaders.IF_NONE_MATCH, "*"))
+                .andExpect(status().isNotFound());
+    }
+
+    private void createUserAndFilm() {
+        userService.createUser(User.builder()
+                .email("mike@mail.ru")
+                .login("Mike123")
+                .name("Mike")
+                .birthday(LocalDate.of(2000, 4, 5))
+                .build());
+        filmService.createFilm(Film.builder()
+                .name("Film")
+                .description("Description")
+                .duration(100)
+                .mpa(MPA.builder().id(1).build())
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .build());
+    }
+}
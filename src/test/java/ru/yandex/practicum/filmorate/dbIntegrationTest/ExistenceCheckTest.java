@@ -0,0 +1,124 @@
+package ru.yandex.practicum.filmorate.dbIntegrationTest;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.metrics.SqlStatementCounter;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MPA;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.genre.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MPADbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class ExistenceCheckTest {
+
+    private final FilmDbStorage filmStorage;
+    private final UserDbStorage userStorage;
+    private final GenreDbStorage genreStorage;
+    private final MPADbStorage mpaStorage;
+    private final FilmService filmService;
+    private final UserService userService;
+    private final SqlStatementCounter statementCounter;
+
+    @Test
+    public void testExistsById() {
+        // Given
+        createUsersAndFilm();
+        // When
+        long statements = statementCounter.current();
+        boolean isFilmFound = filmStorage.existsById(1);
+        // Then
+        assertEquals(1, statementCounter.current() - statements);
+        assertTrue(isFilmFound);
+        assertFalse(filmStorage.existsById(2));
+        assertTrue(userStorage.existsById(2));
+        assertFalse(userStorage.existsById(3));
+        assertTrue(genreStorage.existsById(6));
+        assertFalse(genreStorage.existsById(7));
+        assertTrue(mpaStorage.existsById(5));
+        assertFalse(mpaStorage.existsById(6));
+    }
+
+    @Test
+    public void testLikeMutationsIssueMinimalStatements() {
+        // Given
+        createUsersAndFilm();
+        filmService.findFilmById(1);
+        // When
+        long statements = statementCounter.current();
+        boolean isLiked = filmService.likeFilm(1, 1);
+        long likeStatements = statementCounter.current() - statements;
+        statements = statementCounter.current();
+        boolean isRemoved = filmService.removeLikeFromFilm(1, 1);
+        long removeStatements = statementCounter.current() - statements;
+        statements = statementCounter.current();
+        boolean isMissingRemoved = filmService.removeLikeFromFilm(1, 2);
+        long missingRemoveStatements = statementCounter.current() - statements;
+        statements = statementCounter.current();
+        boolean isLikedByMissingUser = filmService.likeFilm(1, 3);
+        long missingUserStatements = statementCounter.current() - statements;
+        // Then
+        assertTrue(isLiked);
+        assertTrue(isRemoved);
+        assertFalse(isMissingRemoved);
+        assertFalse(isLikedByMissingUser);
+        assertEquals(3, likeStatements);
+        assertEquals(2, removeStatements);
+        assertEquals(1, missingRemoveStatements);
+        assertEquals(1, missingUserStatements);
+        assertEquals(0, filmStorage.findById(1).get().getLikes_count());
+    }
+
+    @Test
+    public void testFriendMutationsSkipMissingUsers() {
+        // Given
+        createUsersAndFilm();
+        // When
+        boolean isAdded = userService.addToFriends(1, 2);
+        boolean isAddedToMissing = userService.addToFriends(1, 3);
+        boolean isDeletedMissing = userService.deleteFromFriends(3, 1);
+        boolean isDeleted = userService.deleteFromFriends(1, 2);
+        // Then
+        assertTrue(isAdded);
+        assertFalse(isAddedToMissing);
+        assertFalse(isDeletedMissing);
+        assertTrue(isDeleted);
+        assertTrue(userService.getListOfFriends(1).isEmpty());
+    }
+
+    private void createUsersAndFilm() {
+        for (int i = 1; i <= 2; i++) {
+            userStorage.create(User.builder()
+                    .email("user" + i + "@mail.ru")
+                    .login("User" + i)
+                    .name("User " + i)
+                    .birthday(LocalDate.of(2000, 1, i))
+                    .build());
+        }
+        filmService.createFilm(Film.builder()
+                .name("Film")
+                .description("Description")
+                .duration(100)
+                .mpa(MPA.builder().id(1).build())
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .genres(Set.of(Genre.builder().id(1).build()))
+                .build());
+    }
+}
@@ -0,0 +1,139 @@
+package ru.yandex.practicum.filmorate.dbIntegrationTest;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.MPA;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmChangeFeed;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "filmorate.feed.max-subscribers=1")
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class FilmChangeFeedTest {
+
+    private static final long TIMEOUT_MILLIS = 5000;
+    private static final int THREADS_AMOUNT = 16;
+
+    private final MockMvc mockMvc;
+    private final FilmService filmService;
+    private final UserService userService;
+    private final FilmChangeFeed feed;
+
+    @Test
+    public void testFeedSendsFilmChanges() throws Exception {
+        // Given
+        createUsers(2);
+        MvcResult stream = mockMvc.perform(get("/films/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // When
+        Film film = filmService.createFilm(film());
+        awaitContent(stream, "event:created");
+        filmService.likeFilm(film.getId(), 1);
+        filmService.likeFilm(film.getId(), 2);
+        awaitContent(stream, "\"likesCount\":2");
+        film.setName("Updated film");
+        filmService.updateFilm(film);
+        filmService.deleteFilmById(film.getId());
+        String content = awaitContent(stream, "event:deleted");
+        // Then
+        assertTrue(content.indexOf("event:created") < content.indexOf("event:likes"));
+        assertTrue(content.indexOf("event:likes") < content.indexOf("event:updated"));
+        assertTrue(content.contains("\"name\":\"Updated film\""));
+        assertTrue(content.indexOf("event:updated") < content.indexOf("event:deleted"));
+    }
+
+    @Test
+    public void testFeedRejectsSubscribersOverLimit() throws Exception {
+        // Given
+        mockMvc.perform(get("/films/stream"))
+                .andExpect(request().asyncStarted());
+        // When
+        mockMvc.perform(get("/films/stream"))
+                // Then
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    public void testConcurrentSubscribersDoNotExceedLimit() throws Exception {
+        // Given
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS_AMOUNT);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> subscriptions = new ArrayList<>();
+        for (int i = 0; i < THREADS_AMOUNT; i++) {
+            subscriptions.add(executor.submit(() -> {
+                start.await();
+                return feed.subscribe().isPresent();
+            }));
+        }
+        // When
+        start.countDown();
+        int accepted = 0;
+        for (Future<Boolean> subscription : subscriptions) {
+            if (subscription.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                accepted++;
+            }
+        }
+        executor.shutdown();
+        // Then
+        assertEquals(1, accepted);
+    }
+
+    private static String awaitContent(MvcResult stream, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        String content = stream.getResponse().getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            content = stream.getResponse().getContentAsString();
+        }
+        assertTrue(content.contains(expected), "Expected " + expected + " in " + content);
+        return content;
+    }
+
+    private static Film film() {
+        return Film.builder()
+                .name("Film")
+                .description("Description")
+                .duration(100)
+                .mpa(MPA.builder().id(1).build())
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .build();
+    }
+
+    private void createUsers(int amount) {
+        for (int i = 1; i <= amount; i++) {
+            userService.createUser(User.builder()
+                    .email("user" + i + "@mail.ru")
+                    .login("User" + i)
+                    .name("User " + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build());
+        }
+    }
+}
@@ -5,19 +5,27 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.metrics.SqlStatementCounter;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Like;
 import ru.yandex.practicum.filmorate.model.MPA;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
@@ -25,11 +33,16 @@ import static org.junit.jupiter.api.Assertions.*;
 @SpringBootTest
 @AutoConfigureTestDatabase
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
-@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
 public class FilmDbTest {
 
+    private static final String COUNT_LIKES = "SELECT COUNT(*) FROM films_likes WHERE film_id = ?";
+    private static final String GET_LIKES_COUNT = "SELECT likes_count FROM films WHERE film_id = ?";
+
     private final FilmDbStorage storage;
     private final UserDbStorage userStorage;
+    private final SqlStatementCounter statementCounter;
+    private final JdbcTemplate jdbcTemplate;
 
     @Test
     public void testFindFilmById() {
@@ -100,6 +113,104 @@ public class FilmDbTest {
                 .hasFieldOrPropertyWithValue("name", "Harry Potter and the Philosopher's Stone");
     }
 
+    @Test
+    public void testFindAllFilmsWithFixedQueryCount() {
+        // Given
+        for (int i = 1; i <= 5; i++) {
+            storage.create(Film.builder()
+                    .name("Film " + i)
+                    .description("Description " + i)
+                    .duration(100 + i)
+                    .mpa(MPA.builder().id(i).build())
+                    .releaseDate(LocalDate.of(2000 + i, 1, 1))
+                    .genres(Set.of(Genre.builder().id(i).build(), Genre.builder().id(i + 1).build()))
+                    .build());
+        }
+        long statements = statementCounter.current();
+        // When
+        List<Film> films = storage.findAll();
+        // Then
+        assertEquals(2, statementCounter.current() - statements);
+        assertEquals(5, films.size());
+        for (Film film : films) {
+            int i = (int) film.getId();
+            assertEquals(i, film.getMpa().getId());
+            assertNotNull(film.getMpa().getName());
+            assertEquals(2, film.getGenres().size());
+            assertTrue(film.getGenres().stream().allMatch(genre -> genre.getName() != null));
+        }
+    }
+
+    @Test
+    public void testFindFilmByIdWithFixedQueryCount() {
+        // Given
+        storage.create(Film.builder()
+                .name("Pirates of the Caribbean: The Curse of the Black Pearl")
+                .description("American fantasy swashbuckler film")
+                .duration(143)
+                .mpa(MPA.builder().id(2).build())
+                .releaseDate(LocalDate.of(2003, 7, 9))
+                .genres(Set.of(Genre.builder().id(1).build(), Genre.builder().id(6).build()))
+                .build());
+        long statements = statementCounter.current();
+        // When
+        Film film = storage.findById(1).get();
+        // Then
+        assertEquals(2, statementCounter.current() - statements);
+        assertEquals("PG", film.getMpa().getName());
+        assertEquals(2, film.getGenres().size());
+    }
+
+    @Test
+    public void testFindAllFilmsPage() {
+        // Given
+        for (int i = 1; i <= 5; i++) {
+            storage.create(Film.builder()
+                    .name("Film " + i)
+                    .description("Description " + i)
+                    .duration(100 + i)
+                    .mpa(MPA.builder().id(1).build())
+                    .releaseDate(LocalDate.of(2000 + i, 1, 1))
+                    .genres(Set.of(Genre.builder().id(i).build()))
+                    .build());
+        }
+        // When
+        List<Film> firstPage = storage.findAll(0, 2);
+        List<Film> secondPage = storage.findAll(firstPage.get(1).getId(), 2);
+        List<Film> lastPage = storage.findAll(4, 2);
+        // Then
+        assertEquals(2, firstPage.size());
+        assertThat(firstPage.get(0)).hasFieldOrPropertyWithValue("id", 1L);
+        assertThat(secondPage.get(0)).hasFieldOrPropertyWithValue("id", 3L);
+        assertThat(secondPage.get(1)).hasFieldOrPropertyWithValue("id", 4L);
+        assertEquals(1, secondPage.get(1).getGenres().size());
+        assertEquals(1, lastPage.size());
+        assertThat(lastPage.get(0)).hasFieldOrPropertyWithValue("id", 5L);
+    }
+
+    @Test
+    public void testStreamAllFilms() {
+        // Given
+        for (int i = 1; i <= 4; i++) {
+            storage.create(Film.builder()
+                    .name("Film " + i)
+                    .description("Description " + i)
+                    .duration(100 + i)
+                    .mpa(MPA.builder().id(i).build())
+                    .releaseDate(LocalDate.of(2000 + i, 1, 1))
+                    .genres(i % 2 == 0 ? Set.of(Genre.builder().id(i).build(), Genre.builder().id(i + 1).build())
+                            : null)
+                    .build());
+        }
+        List<Film> streamed = new ArrayList<>();
+        // When
+        storage.streamAll(streamed::add);
+        // Then
+        assertEquals(storage.findAll(), streamed);
+        assertEquals(0, streamed.get(0).getGenres().size());
+        assertEquals(2, streamed.get(1).getGenres().size());
+    }
+
     @Test
     public void testDeleteById() {
         // Given
@@ -174,6 +285,65 @@ public class FilmDbTest {
         assertEquals(1, storage.findAll().size());
     }
 
+    @Test
+    public void testUpdateAppliesGenresDiff() {
+        // Given
+        storage.create(Film.builder()
+                .name("Pirates of the Caribbean: The Curse of the Black Pearl")
+                .description("American fantasy swashbuckler film")
+                .duration(152)
+                .mpa(MPA.builder().id(1).build())
+                .releaseDate(LocalDate.of(2003, 7, 9))
+                .genres(Set.of(Genre.builder().id(1).build(), Genre.builder().id(2).build()))
+                .build());
+        long statements = statementCounter.current();
+        // When
+        Film film = storage.update(Film.builder()
+                .id(1)
+                .name("Pirates of the Caribbean: The Curse of the Black Pearl")
+                .description("American fantasy swashbuckler film")
+                .duration(152)
+                .mpa(MPA.builder().id(1).build())
+                .releaseDate(LocalDate.of(2003, 7, 9))
+                .genres(Set.of(Genre.builder().id(2).build(), Genre.builder().id(3).build(),
+                        Genre.builder().id(4).build()))
+                .build()).get();
+        // Then
+        // Update of the film, read of stored genre ids, one insert batch and one delete batch
+        assertEquals(4, statementCounter.current() - statements);
+        assertEquals(List.of(2, 3, 4), film.getGenres().stream().map(Genre::getId).collect(Collectors.toList()));
+        assertEquals("Драма", film.getGenres().iterator().next().getName());
+        assertEquals(film.getGenres(), storage.findById(1).get().getGenres());
+    }
+
+    @Test
+    public void testUpdateWithSameGenres() {
+        // Given
+        Set<Genre> genres = Set.of(Genre.builder().id(1).build(), Genre.builder().id(2).build());
+        storage.create(Film.builder()
+                .name("Pirates of the Caribbean: The Curse of the Black Pearl")
+                .description("American fantasy swashbuckler film")
+                .duration(152)
+                .mpa(MPA.builder().id(1).build())
+                .releaseDate(LocalDate.of(2003, 7, 9))
+                .genres(genres)
+                .build());
+        long statements = statementCounter.current();
+        // When
+        Film film = storage.update(Film.builder()
+                .id(1)
+                .name("Pirates of the Caribbean: At World's End")
+                .description("American fantasy swashbuckler film")
+                .duration(169)
+                .mpa(MPA.builder().id(1).build())
+                .releaseDate(LocalDate.of(2007, 5, 19))
+                .genres(genres)
+                .build()).get();
+        // Then
+        assertEquals(2, statementCounter.current() - statements);
+        assertEquals(2, film.getGenres().size());
+    }
+
     @Test
     public void testAddLikeToFilm() {
         // Given
@@ -207,4 +377,172 @@ public class FilmDbTest {
         assertTrue(isLikeRemoved);
         assertEquals(0, storage.findById(1).get().getLikes_count());
     }
+
+    @Test
+    public void testFindTopLikableFilms() {
+        // Given
+        for (int i = 1; i <= 3; i++) {
+            userStorage.create(User.builder()
+                    .email("user" + i + "@mail.ru")
+                    .login("User" + i)
+                    .name("User " + i)
+                    .birthday(LocalDate.of(2000, 4, i))
+                    .build());
+            storage.create(Film.builder()
+                    .name("Film " + i)
+                    .description("Description " + i)
+                    .duration(100 + i)
+                    .mpa(MPA.builder().id(1).build())
+                    .releaseDate(LocalDate.of(2000 + i, 1, 1))
+                    .genres(Set.of(Genre.builder().id(i).build()))
+                    .build());
+        }
+        storage.addLikeToFilm(3, 1);
+        storage.addLikeToFilm(3, 2);
+        storage.addLikeToFilm(2, 1);
+        long statements = statementCounter.current();
+        // When
+        List<Film> films = storage.findTopLikableFilms(2);
+        // Then
+        assertEquals(2, statementCounter.current() - statements);
+        assertEquals(2, films.size());
+        assertThat(films.get(0)).hasFieldOrPropertyWithValue("id", 3L)
+                .hasFieldOrPropertyWithValue("likes_count", 2L);
+        assertThat(films.get(1)).hasFieldOrPropertyWithValue("id", 2L)
+                .hasFieldOrPropertyWithValue("likes_count", 1L);
+        assertEquals(1, films.get(0).getGenres().size());
+    }
+
+    @Test
+    public void testAddLikeToFilmTwice() {
+        // Given
+        testAddLikeToFilm();
+        // When
+        boolean isLikeAdded = storage.addLikeToFilm(1, 1);
+        // Then
+        assertFalse(isLikeAdded);
+        assertEquals(1, storage.findById(1).get().getLikes_count());
+    }
+
+    @Test
+    public void testConcurrentLikesKeepCounterConsistent() throws Exception {
+        // Given
+        int usersAmount = 1000;
+        int filmsAmount = 3;
+        for (int i = 1; i <= usersAmount; i++) {
+            userStorage.create(User.builder()
+                    .email("user" + i + "@mail.ru")
+                    .login("User" + i)
+                    .name("User " + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build());
+        }
+        for (int i = 1; i <= filmsAmount; i++) {
+            storage.create(Film.builder()
+                    .name("Film " + i)
+                    .description("Description " + i)
+                    .duration(100)
+                    .mpa(MPA.builder().id(1).build())
+                    .releaseDate(LocalDate.of(2000, 1, 1))
+                    .build());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<Boolean>> results = new ArrayList<>();
+        // When
+        for (long userId = 1; userId <= usersAmount; userId++) {
+            for (long filmId = 1; filmId <= filmsAmount; filmId++) {
+                long user = userId;
+                long film = filmId;
+                results.add(executor.submit(() -> storage.addLikeToFilm(film, user)));
+                if (film == 1 && user % 2 == 0) {
+                    results.add(executor.submit(() -> storage.removeLikeFromFilm(film, user)));
+                }
+            }
+        }
+        for (Future<Boolean> result : results) {
+            result.get();
+        }
+        executor.shutdown();
+        // Then
+        for (long filmId = 1; filmId <= filmsAmount; filmId++) {
+            long rows = jdbcTemplate.queryForObject(COUNT_LIKES, Long.class, filmId);
+            long counter = jdbcTemplate.queryForObject(GET_LIKES_COUNT, Long.class, filmId);
+            assertEquals(rows, counter);
+        }
+        assertEquals(usersAmount, storage.findById(2).get().getLikes_count());
+        assertEquals(usersAmount, storage.findById(3).get().getLikes_count());
+    }
+
+    @Test
+    public void testDeleteUserKeepsLikesCount() {
+        // Given
+        for (int i = 1; i <= 2; i++) {
+            userStorage.create(User.builder()
+                    .email("user" + i + "@mail.ru")
+                    .login("User" + i)
+                    .name("User " + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build());
+            storage.create(Film.builder()
+                    .name("Film " + i)
+                    .description("Description " + i)
+                    .duration(100)
+                    .mpa(MPA.builder().id(1).build())
+                    .releaseDate(LocalDate.of(2000, 1, 1))
+                    .build());
+        }
+        storage.addLikeToFilm(1, 1);
+        storage.addLikeToFilm(1, 2);
+        storage.addLikeToFilm(2, 1);
+        // When
+        boolean isDeleted = userStorage.deleteById(1);
+        // Then
+        assertTrue(isDeleted);
+        for (long filmId = 1; filmId <= 2; filmId++) {
+            long rows = jdbcTemplate.queryForObject(COUNT_LIKES, Long.class, filmId);
+            long counter = jdbcTemplate.queryForObject(GET_LIKES_COUNT, Long.class, filmId);
+            assertEquals(rows, counter);
+        }
+        assertEquals(1, storage.findById(1).get().getLikes_count());
+        assertEquals(0, storage.findById(2).get().getLikes_count());
+    }
+
+    @Test
+    public void testCreateAllAndAddLikes() {
+        // Given
+        userStorage.create(User.builder()
+                .email("mike@mail.ru")
+                .login("Mike123")
+                .name("Mike")
+                .birthday(LocalDate.of(2000, 4, 5))
+                .build());
+        List<Film> films = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            films.add(Film.builder()
+                    .name("Film " + i)
+                    .description("Description " + i)
+                    .duration(100 + i)
+                    .mpa(MPA.builder().id(i).build())
+                    .releaseDate(LocalDate.of(2000 + i, 1, 1))
+                    .genres(Set.of(Genre.builder().id(i).build(), Genre.builder().id(i + 1).build()))
+                    .build());
+        }
+        // When
+        List<Film> created = storage.createAll(films);
+        List<Boolean> added = storage.addLikes(List.of(
+                Like.builder().filmId(1).userId(1).build(),
+                Like.builder().filmId(2).userId(1).build(),
+                Like.builder().filmId(1).userId(1).build(),
+                Like.builder().filmId(10).userId(1).build(),
+                Like.builder().filmId(3).userId(10).build()));
+        // Then
+        assertEquals(List.of(1L, 2L, 3L), created.stream().map(Film::getId).collect(Collectors.toList()));
+        assertEquals(List.of(true, true, false, false, false), added);
+        Film film = storage.findById(2).get();
+        assertEquals(1, film.getLikes_count());
+        assertEquals("PG", film.getMpa().getName());
+        assertEquals(created.get(1).getGenres(), film.getGenres());
+        assertEquals(1, storage.findById(1).get().getLikes_count());
+        assertEquals(0, storage.findById(3).get().getLikes_count());
+    }
 }
@@ -0,0 +1,163 @@
+package ru.yandex.practicum.filmorate.dbIntegrationTest;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.metrics.SqlStatementCounter;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.MPA;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmLeaderboard;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class FilmLeaderboardTest {
+
+    private final FilmService filmService;
+    private final UserService userService;
+    private final FilmDbStorage storage;
+    private final SqlStatementCounter statementCounter;
+
+    @Test
+    public void testTopFilmsAreServedWithoutStorageAccess() {
+        // Given
+        createUsersAndFilms(3, 3);
+        filmService.likeFilm(3, 1);
+        filmService.likeFilm(3, 2);
+        filmService.likeFilm(2, 1);
+        filmService.likeFilm(1, 1);
+        filmService.removeLikeFromFilm(1, 1);
+        filmService.findTopLikableFilms(2);
+        long statements = statementCounter.current();
+        // When
+        List<Film> films = filmService.findTopLikableFilms(2);
+        // Then
+        assertEquals(0, statementCounter.current() - statements);
+        assertEquals(List.of(3L, 2L), films.stream().map(Film::getId).collect(Collectors.toList()));
+        assertEquals(2, films.get(0).getLikes_count());
+        assertEquals(1, films.get(1).getLikes_count());
+        assertEquals("Film 3", films.get(0).getName());
+    }
+
+    @Test
+    public void testLeaderboardFollowsUpdatesAndDeletes() {
+        // Given
+        createUsersAndFilms(2, 2);
+        filmService.likeFilm(1, 1);
+        Film updated = storage.findById(1).get();
+        updated.setName("Updated");
+        // When
+        filmService.updateFilm(updated);
+        filmService.deleteFilmById(2);
+        List<Film> films = filmService.findTopLikableFilms(10);
+        // Then
+        assertEquals(1, films.size());
+        assertEquals("Updated", films.get(0).getName());
+        assertEquals(1, films.get(0).getLikes_count());
+    }
+
+    @Test
+    public void testLeaderboardIsRebuiltFromStorage() {
+        // Given
+        createUsersAndFilms(3, 3);
+        storage.addLikeToFilm(2, 1);
+        storage.addLikeToFilm(2, 2);
+        storage.addLikeToFilm(1, 3);
+        // When
+        filmService.rebuildIndexes();
+        // Then
+        assertEquals(ranking(storage.findTopLikableFilms(3)), ranking(filmService.findTopLikableFilms(3)));
+    }
+
+    @Test
+    public void testConcurrentLikesKeepLeaderboardConsistent() throws Exception {
+        // Given
+        int usersAmount = 300;
+        int filmsAmount = 5;
+        createUsersAndFilms(usersAmount, filmsAmount);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<Boolean>> results = new ArrayList<>();
+        // When
+        for (long userId = 1; userId <= usersAmount; userId++) {
+            for (long filmId = 1; filmId <= filmsAmount; filmId++) {
+                if (userId % filmId == 0) {
+                    long user = userId;
+                    long film = filmId;
+                    results.add(executor.submit(() -> filmService.likeFilm(film, user)));
+                    results.add(executor.submit(() -> filmService.likeFilm(film, user)));
+                }
+            }
+        }
+        for (Future<Boolean> result : results) {
+            result.get();
+        }
+        executor.shutdown();
+        // Then
+        assertEquals(ranking(storage.findTopLikableFilms(filmsAmount)),
+                ranking(filmService.findTopLikableFilms(filmsAmount)));
+        assertEquals(usersAmount, filmService.findTopLikableFilms(1).get(0).getLikes_count());
+    }
+
+    @Test
+    public void testLikesStoredBeforeFilmIsAddedAreKept() {
+        // Given
+        FilmLeaderboard leaderboard = new FilmLeaderboard();
+        leaderboard.addLikes(1, 1);
+        leaderboard.addLikes(1, 1);
+        leaderboard.addLikes(2, 1);
+        // When
+        leaderboard.putCreated(1);
+        leaderboard.remove(2);
+        leaderboard.putCreated(2);
+        leaderboard.putCreated(3);
+        // Then
+        assertEquals(2, leaderboard.findLikes(1).getAsLong());
+        assertEquals(0, leaderboard.findLikes(2).getAsLong());
+        assertEquals(0, leaderboard.findLikes(3).getAsLong());
+        assertEquals(List.of(1L, 2L, 3L), leaderboard.findTop(3));
+    }
+
+    private static List<String> ranking(List<Film> films) {
+        return films.stream()
+                .map(film -> film.getId() + ":" + film.getLikes_count())
+                .collect(Collectors.toList());
+    }
+
+    private void createUsersAndFilms(int usersAmount, int filmsAmount) {
+        for (int i = 1; i <= usersAmount; i++) {
+            userService.createUser(User.builder()
+                    .email("user" + i + "@mail.ru")
+                    .login("User" + i)
+                    .name("User " + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build());
+        }
+        for (int i = 1; i <= filmsAmount; i++) {
+            filmService.createFilm(Film.builder()
+                    .name("Film " + i)
+                    .description("Description " + i)
+                    .duration(100 + i)
+                    .mpa(MPA.builder().id(1).build())
+                    .releaseDate(LocalDate.of(2000 + i, 1, 1))
+                    .build());
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package ru.yandex.practicum.filmorate.dbIntegrationTest;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MPA;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class FilmSearchTest {
+
+    private final FilmService filmService;
+    private final FilmDbStorage storage;
+
+    @Test
+    public void testSearchMatchesAllQueryTokensIgnoringCase() {
+        // Given
+        createFilm("Star Wars", "A space opera", 1, 1, 1977);
+        createFilm("Star Trek", "Space exploration", 1, 2, 1979);
+        createFilm("Wars of Roses", "Historical drama", 2, 2, 1990);
+        // When
+        List<Film> films = filmService.searchFilms("star-WARS", null, null, null, 0, 10);
+        // Then
+        assertEquals(List.of(1L), ids(films));
+        assertEquals(List.of(1L, 2L), ids(filmService.searchFilms("space", null, null, null, 0, 10)));
+        assertTrue(filmService.searchFilms("unknown", null, null, null, 0, 10).isEmpty());
+    }
+
+    @Test
+    public void testSearchIntersectsGenreRatingAndYear() {
+        // Given
+        createFilm("Star Wars", "A space opera", 1, 1, 1977);
+        createFilm("Star Trek", "Space exploration", 1, 2, 1979);
+        createFilm("Star Dust", "Fairy tale", 2, 2, 1979);
+        // When
+        List<Film> films = filmService.searchFilms("star", null, 2, 1979, 0, 10);
+        // Then
+        assertEquals(List.of(2L, 3L), ids(films));
+        assertEquals(List.of(3L), ids(filmService.searchFilms(null, 2, null, null, 0, 10)));
+        assertEquals(List.of(1L, 2L), ids(filmService.searchFilms("star", 1, null, null, 0, 10)));
+        assertEquals("Star Trek", films.get(0).getName());
+        assertEquals(1, films.get(0).getGenres().size());
+    }
+
+    @Test
+    public void testSearchPagesByIdCursor() {
+        // Given
+        for (int i = 1; i <= 5; i++) {
+            createFilm("Film " + i, "Description", 1, 1, 2000);
+        }
+        // When
+        List<Film> firstPage = filmService.searchFilms("film", null, null, null, 0, 2);
+        List<Film> secondPage = filmService.searchFilms("film", null, null, null, 2, 2);
+        // Then
+        assertEquals(List.of(1L, 2L), ids(firstPage));
+        assertEquals(List.of(3L, 4L), ids(secondPage));
+        assertEquals(List.of(1L, 2L, 3L), ids(filmService.searchFilms(null, null, null, null, 0, 3)));
+    }
+
+    @Test
+    public void testIndexFollowsUpdatesAndDeletes() {
+        // Given
+        createFilm("Star Wars", "A space opera", 1, 1, 1977);
+        createFilm("Star Trek", "Space exploration", 1, 2, 1979);
+        Film updated = storage.findById(1).get();
+        updated.setName("Dune");
+        updated.setGenres(Set.of(Genre.builder().id(3).build()));
+        // When
+        filmService.updateFilm(updated);
+        filmService.deleteFilmById(2);
+        // Then
+        assertTrue(filmService.searchFilms("star", null, null, null, 0, 10).isEmpty());
+        assertTrue(filmService.searchFilms(null, 1, null, null, 0, 10).isEmpty());
+        assertEquals(List.of(1L), ids(filmService.searchFilms("dune", 3, null, null, 0, 10)));
+    }
+
+    @Test
+    public void testIndexIsRebuiltFromStorage() {
+        // Given
+        createFilm("Star Wars", "A space opera", 1, 1, 1977);
+        Film film = storage.create(Film.builder()
+                .name("Star Trek")
+                .description("Space exploration")
+                .duration(100)
+                .mpa(MPA.builder().id(2).build())
+                .genres(Set.of(Genre.builder().id(1).build()))
+                .releaseDate(LocalDate.of(1979, 1, 1))
+                .build());
+        // When
+        filmService.rebuildIndexes();
+        // Then
+        assertEquals(List.of(1L, film.getId()), ids(filmService.searchFilms("star", 1, null, null, 0, 10)));
+    }
+
+    private void createFilm(String name, String description, int genreId, int mpaId, int year) {
+        filmService.createFilm(Film.builder()
+                .name(name)
+                .description(description)
+                .duration(100)
+                .mpa(MPA.builder().id(mpaId).build())
+                .genres(Set.of(Genre.builder().id(genreId).build()))
+                .releaseDate(LocalDate.of(year, 1, 1))
+                .build());
+    }
+
+    private static List<Long> ids(List<Film> films) {
+        return films.stream().map(Film::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,99 @@
+package ru.yandex.practicum.filmorate.dbIntegrationTest;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class FriendSuggestionTest {
+
+    private final MockMvc mockMvc;
+    private final UserService userService;
+    private final UserDbStorage storage;
+
+    @Test
+    public void testSuggestionsFollowFriendChanges() {
+        // Given
+        createUsers(5);
+        userService.addToFriends(1, 2);
+        userService.addToFriends(1, 3);
+        userService.addToFriends(2, 4);
+        userService.addToFriends(3, 4);
+        userService.addToFriends(3, 5);
+        // When
+        List<User> suggestions = userService.getFriendSuggestions(1, 10);
+        userService.deleteFromFriends(3, 4);
+        userService.deleteUserById(5);
+        List<User> afterChanges = userService.getFriendSuggestions(1, 10);
+        // Then
+        assertEquals(List.of(4L, 5L), ids(suggestions));
+        assertEquals("User 4", suggestions.get(0).getName());
+        assertEquals(List.of(4L), ids(afterChanges));
+    }
+
+    @Test
+    public void testSuggestionsAreRebuiltFromStorage() {
+        // Given
+        createUsers(4);
+        storage.addToFriends(1, 2);
+        storage.addToFriends(2, 3);
+        storage.addToFriends(2, 4);
+        storage.addToFriends(2, 1);
+        // When
+        userService.rebuildFriendGraph();
+        // Then
+        assertEquals(List.of(3L, 4L), ids(userService.getFriendSuggestions(1, 10)));
+        assertEquals(List.of(3L), ids(userService.getFriendSuggestions(1, 1)));
+    }
+
+    @Test
+    public void testSuggestionsEndpoint() throws Exception {
+        // Given
+        createUsers(3);
+        userService.addToFriends(1, 2);
+        userService.addToFriends(2, 3);
+        // When
+        mockMvc.perform(get("/users/1/friends/suggestions"))
+                // Then
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(3));
+        mockMvc.perform(get("/users/9/friends/suggestions"))
+                .andExpect(status().isNotFound());
+    }
+
+    private static List<Long> ids(List<User> users) {
+        return users.stream().map(User::getId).collect(Collectors.toList());
+    }
+
+    private void createUsers(int amount) {
+        for (int i = 1; i <= amount; i++) {
+            userService.createUser(User.builder()
+                    .email("user" + i + "@mail.ru")
+                    .login("User" + i)
+                    .name("User " + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build());
+        }
+    }
+}
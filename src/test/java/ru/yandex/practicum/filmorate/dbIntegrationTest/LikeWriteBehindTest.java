@@ -0,0 +1,123 @@
+package ru.yandex.practicum.filmorate.dbIntegrationTest;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.MPA;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.LikeWriteBuffer;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "filmorate.likes.write-behind.enabled=true",
+        "filmorate.likes.write-behind.flush-interval=1h"
+})
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class LikeWriteBehindTest {
+
+    private final FilmService filmService;
+    private final UserService userService;
+    private final LikeWriteBuffer likeBuffer;
+    private final FilmDbStorage storage;
+
+    @Test
+    public void testLikesAreVisibleBeforeFlush() {
+        // Given
+        createUsersAndFilm(2);
+        // When
+        boolean isLiked = filmService.likeFilm(1, 1);
+        boolean isLikedAgain = filmService.likeFilm(1, 1);
+        filmService.likeFilm(1, 2);
+        // Then
+        assertTrue(isLiked);
+        assertFalse(isLikedAgain);
+        assertEquals(2, filmService.findFilmById(1).orElseThrow().getLikes_count());
+        assertEquals(2, filmService.findFilmsPage(0, 10).get(0).getLikes_count());
+        assertEquals(0, storage.findById(1).orElseThrow().getLikes_count());
+        assertEquals(2, likeBuffer.getPendingCount());
+    }
+
+    @Test
+    public void testRemovingLikeWithNonPositiveIdIsRejected() {
+        // Given
+        createUsersAndFilm(1);
+        filmService.likeFilm(1, 1);
+        // When
+        boolean isRemovedFromZeroFilm = filmService.removeLikeFromFilm(0, 1);
+        boolean isRemovedByZeroUser = filmService.removeLikeFromFilm(1, 0);
+        // Then
+        assertFalse(isRemovedFromZeroFilm);
+        assertFalse(isRemovedByZeroUser);
+        assertEquals(1, filmService.findFilmById(1).orElseThrow().getLikes_count());
+        assertEquals(1, likeBuffer.getPendingCount());
+    }
+
+    @Test
+    public void testFlushWritesCoalescedLikes() {
+        // Given
+        createUsersAndFilm(3);
+        filmService.likeFilm(1, 1);
+        filmService.likeFilm(1, 2);
+        likeBuffer.flush();
+        // When
+        filmService.removeLikeFromFilm(1, 1);
+        filmService.likeFilm(1, 1);
+        filmService.removeLikeFromFilm(1, 2);
+        filmService.likeFilm(1, 3);
+        boolean isRemovedAgain = filmService.removeLikeFromFilm(1, 2);
+        likeBuffer.flush();
+        // Then
+        assertFalse(isRemovedAgain);
+        assertEquals(2, storage.findById(1).orElseThrow().getLikes_count());
+        assertEquals(2, filmService.findFilmById(1).orElseThrow().getLikes_count());
+        assertTrue(storage.removeLikeFromFilm(1, 3));
+        assertFalse(storage.removeLikeFromFilm(1, 2));
+    }
+
+    @Test
+    public void testBulkLikesSeeQueuedLikes() {
+        // Given
+        createUsersAndFilm(2);
+        filmService.likeFilm(1, 1);
+        // When
+        List<Like> likes = List.of(Like.builder().filmId(1).userId(1).build(),
+                Like.builder().filmId(1).userId(2).build());
+        int imported = filmService.addLikes(likes).getImported().size();
+        // Then
+        assertEquals(1, imported);
+        assertEquals(2, storage.findById(1).orElseThrow().getLikes_count());
+        assertEquals(2, filmService.findFilmById(1).orElseThrow().getLikes_count());
+    }
+
+    private void createUsersAndFilm(int usersAmount) {
+        for (int i = 1; i <= usersAmount; i++) {
+            userService.createUser(User.builder()
+                    .email("user" + i + "@mail.ru")
+                    .login("User" + i)
+                    .name("User " + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build());
+        }
+        filmService.createFilm(Film.builder()
+                .name("Film")
+                .description("Description")
+                .duration(100)
+                .mpa(MPA.builder().id(1).build())
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .build());
+    }
+}
@@ -0,0 +1,149 @@
+package ru.yandex.practicum.filmorate.dbIntegrationTest;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.MPA;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.yandex.practicum.filmorate.controller.FilmController.NEXT_CURSOR_HEADER;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class PaginationTest {
+
+    private static final int ENTITIES_AMOUNT = FilmService.MAX_PAGE_SIZE + 1;
+
+    private final MockMvc mockMvc;
+    private final FilmService filmService;
+    private final UserService userService;
+
+    @Test
+    public void testFilmsPageAboveMaximumIsClampedAndHasNextCursor() throws Exception {
+        // Given
+        createFilms();
+        // When
+        mockMvc.perform(get("/films").param("limit", "5000"))
+                // Then
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(FilmService.MAX_PAGE_SIZE))
+                .andExpect(header().string(NEXT_CURSOR_HEADER, String.valueOf(FilmService.MAX_PAGE_SIZE)));
+    }
+
+    @Test
+    public void testFilmsPageOfZeroIsClampedToOneAndHasNextCursor() throws Exception {
+        // Given
+        createFilms();
+        // When
+        mockMvc.perform(get("/films").param("limit", "0"))
+                // Then
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(header().string(NEXT_CURSOR_HEADER, "1"));
+    }
+
+    @Test
+    public void testSearchPageAboveMaximumIsClampedAndHasNextCursor() throws Exception {
+        // Given
+        createFilms();
+        // When
+        mockMvc.perform(get("/films/search").param("q", "film").param("limit", "5000"))
+                // Then
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(FilmService.MAX_PAGE_SIZE))
+                .andExpect(header().string(NEXT_CURSOR_HEADER, String.valueOf(FilmService.MAX_PAGE_SIZE)));
+    }
+
+    @Test
+    public void testSearchPageOfZeroIsClampedToOneAndHasNextCursor() throws Exception {
+        // Given
+        createFilms();
+        // When
+        mockMvc.perform(get("/films/search").param("q", "film").param("limit", "0"))
+                // Then
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(header().string(NEXT_CURSOR_HEADER, "1"));
+    }
+
+    @Test
+    public void testPopularFilmsAboveMaximumAreCapped() throws Exception {
+        // Given
+        createFilms();
+        // When
+        mockMvc.perform(get("/films/popular").param("count", "1000000"))
+                // Then
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(FilmService.MAX_PAGE_SIZE));
+    }
+
+    @Test
+    public void testUsersPageAboveMaximumIsClampedAndHasNextCursor() throws Exception {
+        // Given
+        createUsers();
+        // When
+        mockMvc.perform(get("/users").param("limit", "5000"))
+                // Then
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(UserService.MAX_PAGE_SIZE))
+                .andExpect(header().string(NEXT_CURSOR_HEADER, String.valueOf(UserService.MAX_PAGE_SIZE)));
+    }
+
+    @Test
+    public void testUsersPageOfZeroIsClampedToOneAndHasNextCursor() throws Exception {
+        // Given
+        createUsers();
+        // When
+        mockMvc.perform(get("/users").param("limit", "0"))
+                // Then
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(header().string(NEXT_CURSOR_HEADER, "1"));
+    }
+
+    private void createFilms() {
+        List<Film> films = new ArrayList<>();
+        for (int i = 1; i <= ENTITIES_AMOUNT; i++) {
+            films.add(Film.builder()
+                    .name("Film " + i)
+                    .description("Description")
+                    .duration(100)
+                    .mpa(MPA.builder().id(1).build())
+                    .releaseDate(LocalDate.of(2000, 1, 1))
+                    .build());
+        }
+        filmService.createFilms(films);
+    }
+
+    private void createUsers() {
+        List<User> users = new ArrayList<>();
+        for (int i = 1; i <= ENTITIES_AMOUNT; i++) {
+            users.add(User.builder()
+                    .email("user" + i + "@mail.ru")
+                    .login("User" + i)
+                    .name("User " + i)
+                    .birthday(LocalDate.of(2000, 4, 5))
+                    .build());
+        }
+        userService.createUsers(users);
+    }
+}
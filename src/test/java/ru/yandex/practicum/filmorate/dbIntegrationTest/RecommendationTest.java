@@ -0,0 +1,140 @@
+package ru.yandex.practicum.filmorate.dbIntegrationTest;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.MPA;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class RecommendationTest {
+
+    private final MockMvc mockMvc;
+    private final FilmService filmService;
+    private final UserService userService;
+    private final FilmDbStorage storage;
+
+    @Test
+    public void testRecommendationsFollowOverlappingLikes() {
+        // Given
+        createUsersAndFilms(3, 4);
+        filmService.likeFilm(1, 1);
+        filmService.likeFilm(2, 1);
+        filmService.likeFilm(1, 2);
+        filmService.likeFilm(2, 2);
+        filmService.likeFilm(3, 2);
+        filmService.likeFilm(4, 3);
+        filmService.likeFilm(1, 3);
+        // When
+        List<Film> recommendations = filmService.getRecommendations(1, 10);
+        filmService.removeLikeFromFilm(3, 2);
+        filmService.deleteFilmById(4);
+        List<Film> afterChanges = filmService.getRecommendations(1, 10);
+        // Then
+        assertEquals(List.of(3L, 4L), ids(recommendations));
+        assertEquals("Film 3", recommendations.get(0).getName());
+        assertTrue(afterChanges.isEmpty());
+    }
+
+    @Test
+    public void testRecommendationsAreRebuiltFromStorage() {
+        // Given
+        createUsersAndFilms(3, 4);
+        storage.addLikeToFilm(1, 1);
+        storage.addLikeToFilm(1, 2);
+        storage.addLikeToFilm(3, 2);
+        storage.addLikeToFilm(1, 3);
+        storage.addLikeToFilm(3, 3);
+        storage.addLikeToFilm(2, 3);
+        // When
+        filmService.rebuildIndexes();
+        // Then
+        assertEquals(List.of(3L, 2L), ids(filmService.getRecommendations(1, 10)));
+        assertEquals(List.of(3L), ids(filmService.getRecommendations(1, 1)));
+    }
+
+    @Test
+    public void testDeletedUserNoLongerDrivesRecommendations() {
+        // Given
+        createUsersAndFilms(3, 3);
+        filmService.likeFilm(1, 1);
+        filmService.likeFilm(2, 1);
+        filmService.likeFilm(1, 2);
+        filmService.likeFilm(3, 3);
+        filmService.likeFilm(1, 3);
+        // When
+        List<Film> recommendations = filmService.getRecommendations(2, 10);
+        userService.deleteUserById(1);
+        List<Film> afterDelete = filmService.getRecommendations(2, 10);
+        // Then
+        assertEquals(List.of(2L, 3L), ids(recommendations));
+        assertEquals(List.of(3L), ids(afterDelete));
+        assertEquals(0, filmService.findFilmById(2).get().getLikes_count());
+        assertEquals(0, storage.findById(2).get().getLikes_count());
+        assertEquals(2, filmService.findFilmById(1).get().getLikes_count());
+        assertEquals(List.of(1L, 3L), ids(filmService.findTopLikableFilms(2)));
+        assertEquals(0, filmService.findLikesCount(2).getAsLong());
+    }
+
+    @Test
+    public void testRecommendationsEndpoint() throws Exception {
+        // Given
+        createUsersAndFilms(2, 2);
+        filmService.likeFilm(1, 1);
+        filmService.likeFilm(1, 2);
+        filmService.likeFilm(2, 2);
+        // When
+        mockMvc.perform(get("/users/1/recommendations"))
+                // Then
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(2));
+        mockMvc.perform(get("/users/9/recommendations"))
+                .andExpect(status().isNotFound());
+    }
+
+    private static List<Long> ids(List<Film> films) {
+        return films.stream().map(Film::getId).collect(Collectors.toList());
+    }
+
+    private void createUsersAndFilms(int usersAmount, int filmsAmount) {
+        for (int i = 1; i <= usersAmount; i++) {
+            userService.createUser(User.builder()
+                    .email("user" + i + "@mail.ru")
+                    .login("User" + i)
+                    .name("User " + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build());
+        }
+        for (int i = 1; i <= filmsAmount; i++) {
+            filmService.createFilm(Film.builder()
+                    .name("Film " + i)
+                    .description("Description " + i)
+                    .duration(100 + i)
+                    .mpa(MPA.builder().id(1).build())
+                    .releaseDate(LocalDate.of(2000 + i, 1, 1))
+                    .build());
+        }
+    }
+}
@@ -5,12 +5,14 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.DirtiesContext;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
@@ -19,10 +21,20 @@ import static org.junit.jupiter.api.Assertions.*;
 @SpringBootTest
 @AutoConfigureTestDatabase
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
-@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
 public class UserDBTest {
 
+    // The friendship queries of UserDbStorage with the values their parameters are bound to
+    private static final Map<String, Object[]> FRIENDSHIP_QUERIES = Map.of(
+            UserDbStorage.GET_FRIENDS, new Object[]{1},
+            UserDbStorage.GET_COMMON_FRIENDS, new Object[]{1, 2},
+            UserDbStorage.HAS_FRIEND, new Object[]{1, 2},
+            UserDbStorage.DELETE_FRIEND, new Object[]{1, 2},
+            UserDbStorage.SET_ACCEPTED, new Object[]{true, 2, 1}
+    );
+
     private final UserDbStorage storage;
+    private final JdbcTemplate jdbcTemplate;
 
     @Test
     public void testFindUserById() {
@@ -79,6 +91,27 @@ public class UserDBTest {
                 .hasFieldOrPropertyWithValue("name", "Tom");
     }
 
+    @Test
+    public void testFindAllUsersPage() {
+        // Given
+        for (int i = 1; i <= 3; i++) {
+            storage.create(User.builder()
+                    .email("user" + i + "@mail.ru")
+                    .login("User" + i)
+                    .name("User " + i)
+                    .birthday(LocalDate.of(2000, 4, i))
+                    .build());
+        }
+        // When
+        List<User> firstPage = storage.findAll(0, 2);
+        List<User> secondPage = storage.findAll(2, 2);
+        // Then
+        assertEquals(2, firstPage.size());
+        assertThat(firstPage.get(1)).hasFieldOrPropertyWithValue("id", 2L);
+        assertEquals(1, secondPage.size());
+        assertThat(secondPage.get(0)).hasFieldOrPropertyWithValue("id", 3L);
+    }
+
     @Test
     public void testDeleteById() {
         // Given
@@ -250,4 +283,66 @@ public class UserDBTest {
         assertEquals(1, storage.findAll().size());
         System.out.println(storage.getListOfFriends(2));
     }
+
+    @Test
+    public void testGetListOfCommonFriends() {
+        // Given
+        for (int i = 1; i <= 4; i++) {
+            storage.create(User.builder()
+                    .email("user" + i + "@mail.ru")
+                    .login("User" + i)
+                    .name("User " + i)
+                    .birthday(LocalDate.of(2000, 4, i))
+                    .build());
+        }
+        storage.addToFriends(1, 3);
+        storage.addToFriends(1, 4);
+        storage.addToFriends(2, 3);
+        storage.addToFriends(4, 2);
+        // When
+        List<User> commonFriends = storage.getListOfCommonFriends(1, 2);
+        // Then
+        assertEquals(1, commonFriends.size());
+        assertThat(commonFriends.get(0)).hasFieldOrPropertyWithValue("id", 3L);
+        assertEquals(0, storage.getListOfCommonFriends(1, 4).size());
+    }
+
+    @Test
+    public void testFriendshipQueriesUseIndexes() {
+        FRIENDSHIP_QUERIES.forEach((query, args) -> {
+            // When
+            String plan = jdbcTemplate.queryForObject("EXPLAIN " + query, String.class, args);
+            // Then
+            assertFalse(plan.contains("tableScan"), plan);
+        });
+    }
+
+    @Test
+    public void testCreateAllSkipsTakenEmailsAndLogins() {
+        // Given
+        storage.create(User.builder()
+                .email("mike@mail.ru")
+                .login("Mike123")
+                .name("Mike")
+                .birthday(LocalDate.of(2000, 4, 5))
+                .build());
+        List<User> users = List.of(
+                User.builder().email("tom@mail.ru").login("Tom").name("Tom")
+                        .birthday(LocalDate.of(1994, 1, 7)).build(),
+                User.builder().email("mike@mail.ru").login("Mike").name("Mike")
+                        .birthday(LocalDate.of(2000, 4, 5)).build(),
+                User.builder().email("kate@mail.ru").login("Tom").name("Kate")
+                        .birthday(LocalDate.of(2005, 5, 1)).build(),
+                User.builder().email("kate@mail.ru").login("Katy").name("Kate")
+                        .birthday(LocalDate.of(2005, 5, 1)).build());
+        // When
+        List<User> created = storage.createAll(users);
+        // Then
+        assertEquals(2, created.size());
+        assertEquals(2, users.get(0).getId());
+        assertEquals(0, users.get(1).getId());
+        assertEquals(0, users.get(2).getId());
+        assertEquals(3, users.get(3).getId());
+        assertEquals(3, storage.findAll().size());
+    }
 }
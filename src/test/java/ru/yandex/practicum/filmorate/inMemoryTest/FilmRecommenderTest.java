@@ -0,0 +1,170 @@
+package ru.yandex.practicum.filmorate.inMemoryTest;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.service.FilmRecommender;
+import ru.yandex.practicum.filmorate.storage.LongIntMap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FilmRecommenderTest {
+
+    @Test
+    public void test1_shouldRecommendFilmsLikedTogether() {
+        // Given
+        FilmRecommender recommender = new FilmRecommender(50);
+        recommender.addLike(1, 1);
+        recommender.addLike(2, 1);
+        recommender.addLike(3, 1);
+        recommender.addLike(1, 2);
+        recommender.addLike(3, 2);
+        recommender.addLike(4, 3);
+        recommender.addLike(2, 3);
+        recommender.addLike(1, 4);
+
+        // When
+        List<Long> recommendations = recommender.recommend(4, 10);
+        recommender.removeLike(3, 2);
+        recommender.removeLike(3, 1);
+        List<Long> afterUnlike = recommender.recommend(4, 10);
+        recommender.removeFilm(2);
+        List<Long> afterDelete = recommender.recommend(4, 10);
+
+        // Then
+        assertEquals(List.of(3L, 2L), recommendations);
+        assertEquals(List.of(2L), afterUnlike);
+        assertTrue(afterDelete.isEmpty());
+        assertTrue(recommender.recommend(5, 10).isEmpty());
+    }
+
+    @Test
+    public void test2_shouldMatchRebuildAfterRandomLikesAndUnlikes() {
+        // Given
+        Random random = new Random(42);
+        int sampleSize = 5;
+        FilmRecommender recommender = new FilmRecommender(sampleSize);
+        Map<Long, Set<Long>> likes = new HashMap<>();
+
+        // When
+        for (int i = 0; i < 50_000; i++) {
+            long filmId = 1 + random.nextInt(30);
+            long userId = 1 + random.nextInt(40);
+            if (random.nextInt(10) < 6) {
+                recommender.addLike(filmId, userId);
+                likes.computeIfAbsent(filmId, id -> new HashSet<>()).add(userId);
+            } else {
+                recommender.removeLike(filmId, userId);
+                likes.getOrDefault(filmId, new HashSet<>()).remove(userId);
+            }
+        }
+        FilmRecommender rebuilt = new FilmRecommender(sampleSize);
+        rebuilt.rebuild(action -> likes.forEach((filmId, users) -> users.forEach(userId -> action.accept(
+                Like.builder().filmId(filmId).userId(userId).build()))));
+
+        // Then
+        for (long userId = 1; userId <= 40; userId++) {
+            List<Long> recommendations = recommender.recommend(userId, 10);
+            assertEquals(rebuilt.recommend(userId, 10), recommendations);
+            for (long filmId : recommendations) {
+                assertTrue(!likes.containsKey(filmId) || !likes.get(filmId).contains(userId));
+            }
+        }
+    }
+
+    @Test
+    public void test3_shouldKeepLongIntMapCountersLikeHashMap() {
+        // Given
+        Random random = new Random(7);
+        LongIntMap map = new LongIntMap();
+        Map<Long, Integer> expected = new HashMap<>();
+
+        // When
+        for (int i = 0; i < 100_000; i++) {
+            long key = 1 + random.nextInt(500);
+            int delta = random.nextInt(3) - 1;
+            int value = expected.getOrDefault(key, 0) + delta;
+            if (value == 0) {
+                expected.remove(key);
+            } else {
+                expected.put(key, value);
+            }
+            assertEquals(value, map.add(key, delta));
+        }
+        List<Long> keys = new ArrayList<>();
+        map.forEach((key, value) -> {
+            keys.add(key);
+            assertEquals((int) expected.get(key), value);
+        });
+
+        // Then
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected.size(), keys.size());
+    }
+
+    @Test
+    public void test4_shouldMatchRebuildAfterConcurrentLikesOfDifferentUsers() throws Exception {
+        // Given
+        int threads = 8;
+        int sampleSize = 5;
+        FilmRecommender recommender = new FilmRecommender(sampleSize);
+        Map<Long, Set<Long>> likes = new ConcurrentHashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        AtomicBoolean isDone = new AtomicBoolean();
+        List<Future<?>> writers = new ArrayList<>();
+
+        // When
+        Future<?> reader = executor.submit(() -> {
+            Random random = new Random(1);
+            while (!isDone.get()) {
+                recommender.recommend(1 + random.nextInt(80), 10);
+            }
+        });
+        for (int thread = 0; thread < threads; thread++) {
+            int owner = thread;
+            writers.add(executor.submit(() -> {
+                // Every thread owns the users congruent to its number, so each user's likes stay ordered
+                Random random = new Random(owner);
+                for (int i = 0; i < 100_000; i++) {
+                    long filmId = 1 + random.nextInt(12);
+                    long userId = 1 + owner + (long) threads * random.nextInt(10);
+                    Set<Long> likers = likes.computeIfAbsent(filmId, id -> ConcurrentHashMap.newKeySet());
+                    if (random.nextInt(10) < 6) {
+                        recommender.addLike(filmId, userId);
+                        likers.add(userId);
+                    } else {
+                        recommender.removeLike(filmId, userId);
+                        likers.remove(userId);
+                    }
+                }
+            }));
+        }
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        isDone.set(true);
+        reader.get();
+        executor.shutdown();
+        FilmRecommender rebuilt = new FilmRecommender(sampleSize);
+        rebuilt.rebuild(action -> likes.forEach((filmId, users) -> users.forEach(userId -> action.accept(
+                Like.builder().filmId(filmId).userId(userId).build()))));
+
+        // Then
+        for (long userId = 1; userId <= threads * 10L; userId++) {
+            assertEquals(rebuilt.recommend(userId, 10), recommender.recommend(userId, 10));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.inMemoryTest;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.service.FriendGraph;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FriendGraphTest {
+
+    @Test
+    public void test1_shouldRankFriendsOfFriendsByMutualFriends() {
+        // Given
+        FriendGraph graph = new FriendGraph(100_000);
+        graph.addFriend(1, 2);
+        graph.addFriend(1, 3);
+        graph.addFriend(1, 4);
+        graph.addFriend(2, 5);
+        graph.addFriend(3, 5);
+        graph.addFriend(3, 6);
+        graph.addFriend(4, 6);
+        graph.addFriend(4, 7);
+        graph.addFriend(2, 1);
+        graph.addFriend(2, 3);
+
+        // When
+        List<Long> suggestions = graph.suggest(1, 10);
+        List<Long> top = graph.suggest(1, 2);
+        graph.removeFriend(3, 5);
+        graph.removeUser(6);
+        List<Long> afterChanges = graph.suggest(1, 10);
+
+        // Then
+        assertEquals(List.of(5L, 6L, 7L), suggestions);
+        assertEquals(List.of(5L, 6L), top);
+        assertEquals(List.of(5L, 7L), afterChanges);
+        assertTrue(graph.suggest(5, 10).isEmpty());
+    }
+
+    @Test
+    public void test2_shouldBoundVisitedEdgesOfPopularFriends() {
+        // Given
+        FriendGraph graph = new FriendGraph(100);
+        graph.addFriend(1, 2);
+        graph.addFriend(1, 3);
+        for (long id = 1000; id < 6000; id++) {
+            graph.addFriend(2, id);
+        }
+        graph.addFriend(3, 7);
+
+        // When
+        List<Long> suggestions = graph.suggest(1, 1000);
+
+        // Then
+        assertEquals(51, suggestions.size());
+        assertTrue(suggestions.contains(7L));
+    }
+
+    @Test
+    public void test3_shouldRebuildFromFriendships() {
+        // Given
+        FriendGraph graph = new FriendGraph(100_000);
+        graph.addFriend(9, 8);
+
+        // When
+        graph.rebuild(action -> List.of(new long[]{1, 2}, new long[]{2, 3}, new long[]{2, 4}).forEach(edge ->
+                action.accept(Friendship.builder().userId(edge[0]).friendId(edge[1]).build())));
+
+        // Then
+        assertEquals(List.of(3L, 4L), graph.suggest(1, 10));
+        assertTrue(graph.suggest(9, 10).isEmpty());
+    }
+}
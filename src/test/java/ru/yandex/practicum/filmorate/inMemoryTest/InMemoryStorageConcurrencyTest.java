@@ -0,0 +1,249 @@
+package ru.yandex.practicum.filmorate.inMemoryTest;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.MPA;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.genre.InMemoryGenreStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.InMemoryMPAStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InMemoryStorageConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    private ExecutorService executor;
+    private InMemoryFilmStorage filmStorage;
+    private InMemoryUserStorage userStorage;
+
+    @BeforeEach
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(THREADS);
+        filmStorage = new InMemoryFilmStorage(new InMemoryGenreStorage(), new InMemoryMPAStorage());
+        userStorage = new InMemoryUserStorage();
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void test1_shouldGenerateUniqueIdsForConcurrentCreates() throws Exception {
+        // Given
+        int perThread = 1000;
+
+        // When
+        List<Long> ids = runConcurrently(thread -> {
+            List<Long> created = new ArrayList<>();
+            for (int i = 0; i < perThread; i++) {
+                created.add(filmStorage.create(film()).getId());
+                created.add(userStorage.create(user(thread, i)).getId());
+            }
+            return created;
+        });
+
+        // Then
+        assertEquals(THREADS * perThread * 2, ids.size());
+        assertEquals(THREADS * perThread, filmStorage.findAll().size());
+        assertEquals(THREADS * perThread, userStorage.findAll().size());
+        assertEquals(THREADS * perThread, filmStorage.findAll(0, Integer.MAX_VALUE).stream()
+                .mapToLong(Film::getId).distinct().count());
+    }
+
+    @Test
+    public void test2_shouldCountEveryLikeOnceUnderContention() throws Exception {
+        // Given
+        int usersAmount = 2000;
+        Film first = filmStorage.create(film());
+        Film second = filmStorage.create(film());
+
+        // When
+        List<Long> added = runConcurrently(thread -> {
+            List<Long> result = new ArrayList<>();
+            for (long userId = 1; userId <= usersAmount; userId++) {
+                // Every thread tries every like, only one attempt per pair may succeed
+                if (filmStorage.addLikeToFilm(first.getId(), userId)) {
+                    result.add(userId);
+                }
+                if (userId % 2 == 0 && filmStorage.addLikeToFilm(second.getId(), userId)) {
+                    result.add(-userId);
+                }
+            }
+            return result;
+        });
+        List<Long> removed = runConcurrently(thread -> {
+            List<Long> result = new ArrayList<>();
+            for (long userId = 1; userId <= usersAmount; userId += 4) {
+                if (filmStorage.removeLikeFromFilm(first.getId(), userId)) {
+                    result.add(userId);
+                }
+            }
+            return result;
+        });
+
+        // Then
+        assertEquals(usersAmount + usersAmount / 2, added.size());
+        assertEquals(usersAmount / 4, removed.size());
+        assertEquals(usersAmount - usersAmount / 4, filmStorage.findById(first.getId()).orElseThrow().getLikes_count());
+        assertEquals(usersAmount / 2, filmStorage.findById(second.getId()).orElseThrow().getLikes_count());
+    }
+
+    @Test
+    public void test3_shouldKeepFriendSetsConsistentUnderContention() throws Exception {
+        // Given
+        int usersAmount = 500;
+        for (int i = 0; i < usersAmount; i++) {
+            userStorage.create(user(0, i));
+        }
+
+        // When
+        List<Long> added = runConcurrently(thread -> {
+            List<Long> result = new ArrayList<>();
+            for (long friendId = 2; friendId <= usersAmount; friendId++) {
+                if (userStorage.addToFriends(1, friendId)) {
+                    result.add(friendId);
+                }
+                userStorage.addToFriends(friendId, 1);
+            }
+            return result;
+        });
+
+        // Then
+        Set<Long> friendIds = new HashSet<>(added);
+        assertEquals(usersAmount - 1, added.size());
+        assertEquals(usersAmount - 1, friendIds.size());
+        assertEquals(usersAmount - 1, userStorage.getListOfFriends(1).size());
+        assertEquals(1, userStorage.getListOfCommonFriends(2, 3).size());
+    }
+
+    @Test
+    public void test4_shouldKeepLikesCountWhenUpdatedDuringLikes() throws Exception {
+        // Given
+        int usersAmount = 20_000;
+        Film film = filmStorage.create(film());
+
+        // When
+        runConcurrently(thread -> {
+            for (long userId = thread + 1; userId <= usersAmount; userId += THREADS) {
+                if (thread % 2 == 0) {
+                    Film update = film();
+                    update.setId(film.getId());
+                    filmStorage.update(update);
+                }
+                filmStorage.addLikeToFilm(film.getId(), userId);
+            }
+            return new ArrayList<>();
+        });
+
+        // Then
+        assertEquals(usersAmount, filmStorage.findById(film.getId()).orElseThrow().getLikes_count());
+    }
+
+    @Test
+    public void test5_shouldKeepNoLikesOfFilmsDeletedDuringLikes() throws Exception {
+        // Given
+        int filmsAmount = 20_000;
+        for (int i = 0; i < filmsAmount; i++) {
+            filmStorage.create(film());
+        }
+
+        // When
+        runConcurrently(thread -> {
+            for (long filmId = 1; filmId <= filmsAmount; filmId++) {
+                if (thread % 2 == 0) {
+                    filmStorage.deleteById(filmId);
+                } else {
+                    filmStorage.addLikeToFilm(filmId, thread);
+                }
+            }
+            return new ArrayList<>();
+        });
+
+        // Then
+        List<Long> likedFilms = new ArrayList<>();
+        filmStorage.streamLikes(like -> likedFilms.add(like.getFilmId()));
+        assertTrue(filmStorage.findAll().isEmpty());
+        assertTrue(likedFilms.isEmpty(), likedFilms.toString());
+    }
+
+    @Test
+    public void test6_shouldRejectNonPositiveIdsOfLikes() {
+        // Given
+        Film film = filmStorage.create(film());
+        filmStorage.addLikeToFilm(film.getId(), 1);
+
+        // When
+        boolean isAdded = filmStorage.addLikeToFilm(film.getId(), 0);
+        boolean isRemoved = filmStorage.removeLikeFromFilm(film.getId(), -1);
+        boolean isRemovedFromMissingFilm = filmStorage.removeLikeFromFilm(0, 1);
+
+        // Then
+        assertFalse(isAdded);
+        assertFalse(isRemoved);
+        assertFalse(isRemovedFromMissingFilm);
+        assertEquals(1, filmStorage.findById(film.getId()).orElseThrow().getLikes_count());
+    }
+
+    private <T> List<T> runConcurrently(ThreadTask<T> task) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<T>>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            int threadNumber = thread;
+            Callable<List<T>> callable = () -> {
+                start.await();
+                return task.run(threadNumber);
+            };
+            futures.add(executor.submit(callable));
+        }
+        start.countDown();
+        List<T> results = new ArrayList<>();
+        for (Future<List<T>> future : futures) {
+            results.addAll(future.get(30, TimeUnit.SECONDS));
+        }
+        return results;
+    }
+
+    private interface ThreadTask<T> {
+        List<T> run(int thread) throws Exception;
+    }
+
+    private static Film film() {
+        return Film.builder()
+                .name("Film")
+                .description("Description")
+                .duration(100)
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .mpa(MPA.builder().id(1).build())
+                .build();
+    }
+
+    private static User user(int thread, int index) {
+        return User.builder()
+                .email("user" + thread + "x" + index + "@mail.ru")
+                .login("user" + thread + "x" + index)
+                .name("User")
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build();
+    }
+}
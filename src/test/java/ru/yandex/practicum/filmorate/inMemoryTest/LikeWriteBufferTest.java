@@ -0,0 +1,164 @@
+package ru.yandex.practicum.filmorate.inMemoryTest;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.MPA;
+import ru.yandex.practicum.filmorate.service.LikeWriteBuffer;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.genre.InMemoryGenreStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.InMemoryMPAStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LikeWriteBufferTest {
+
+    private InMemoryFilmStorage storage;
+
+    @BeforeEach
+    public void setUp() {
+        storage = new InMemoryFilmStorage(new InMemoryGenreStorage(), new InMemoryMPAStorage());
+        storage.create(film());
+    }
+
+    @Test
+    public void test1_shouldCancelLikeAndUnlikeOfSamePair() {
+        // Given
+        LikeWriteBuffer buffer = new LikeWriteBuffer(storage, true, Duration.ofHours(1), 100);
+
+        // When
+        boolean isLiked = buffer.record(like(1), true, () -> true);
+        buffer.record(like(1), false, () -> true);
+        buffer.record(like(2), true, () -> true);
+        boolean isRepeated = buffer.record(like(2), true, () -> false);
+        int pendingBeforeFlush = buffer.getPendingCount();
+        long storedBeforeFlush = storage.findById(1).orElseThrow().getLikes_count();
+        buffer.flush();
+
+        // Then
+        assertTrue(isLiked);
+        assertFalse(isRepeated);
+        assertEquals(1, pendingBeforeFlush);
+        assertEquals(0, storedBeforeFlush);
+        assertEquals(1, storage.findById(1).orElseThrow().getLikes_count());
+        assertEquals(0, buffer.getPendingCount());
+        assertFalse(storage.removeLikeFromFilm(1, 1));
+    }
+
+    @Test
+    public void test2_shouldFlushWhenMaxPendingIsReached() {
+        // Given
+        LikeWriteBuffer buffer = new LikeWriteBuffer(storage, true, Duration.ofHours(1), 3);
+
+        // When
+        buffer.record(like(1), true, () -> true);
+        buffer.record(like(2), true, () -> true);
+        long storedBelowLimit = storage.findById(1).orElseThrow().getLikes_count();
+        buffer.record(like(3), true, () -> true);
+
+        // Then
+        assertEquals(0, storedBelowLimit);
+        assertEquals(3, storage.findById(1).orElseThrow().getLikes_count());
+        assertEquals(0, buffer.getPendingCount());
+    }
+
+    @Test
+    public void test3_shouldNotBlockOtherPairsDuringChange() throws Exception {
+        // Given
+        LikeWriteBuffer buffer = new LikeWriteBuffer(storage, true, Duration.ofHours(1), 100);
+        CountDownLatch isChanging = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Boolean> slowLike = executor.submit(() -> buffer.record(like(1), true, () -> {
+            isChanging.countDown();
+            try {
+                return release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }));
+        assertTrue(isChanging.await(10, TimeUnit.SECONDS));
+
+        // When
+        Future<Boolean> otherLike = CompletableFuture.supplyAsync(() -> buffer.record(like(2), true, () -> true));
+        boolean isOtherLiked = otherLike.get(5, TimeUnit.SECONDS);
+        release.countDown();
+        boolean isSlowLiked = slowLike.get(10, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        // Then
+        assertTrue(isOtherLiked);
+        assertTrue(isSlowLiked);
+        assertEquals(2, buffer.getPendingCount());
+    }
+
+    @Test
+    public void test4_shouldRefuseChangesWhileFullQueueCannotBeWritten() {
+        // Given
+        boolean[] isDatabaseDown = {true};
+        InMemoryFilmStorage failingStorage = new InMemoryFilmStorage(new InMemoryGenreStorage(),
+                new InMemoryMPAStorage()) {
+            @Override
+            public List<Boolean> addLikes(List<Like> newLikes) {
+                if (isDatabaseDown[0]) {
+                    throw new IllegalStateException("Database is down");
+                }
+                return super.addLikes(newLikes);
+            }
+        };
+        failingStorage.create(film());
+        LikeWriteBuffer buffer = new LikeWriteBuffer(failingStorage, true, Duration.ofHours(1), 3);
+        boolean[] isApplied = new boolean[1];
+
+        // When
+        for (long userId = 1; userId <= 3; userId++) {
+            buffer.record(like(userId), true, () -> true);
+        }
+        int pendingAfterFailedFlush = buffer.getPendingCount();
+        ResponseStatusException refused = assertThrows(ResponseStatusException.class,
+                () -> buffer.record(like(4), true, () -> isApplied[0] = true));
+        int pendingAfterRefusal = buffer.getPendingCount();
+        isDatabaseDown[0] = false;
+        boolean isLikedAfterRecovery = buffer.record(like(4), true, () -> true);
+
+        // Then
+        assertEquals(3, pendingAfterFailedFlush);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, refused.getStatus());
+        assertFalse(isApplied[0]);
+        assertEquals(3, pendingAfterRefusal);
+        assertTrue(isLikedAfterRecovery);
+        assertEquals(3, failingStorage.findById(1).orElseThrow().getLikes_count());
+        assertEquals(1, buffer.getPendingCount());
+    }
+
+    private static Film film() {
+        return Film.builder()
+                .name("Film")
+                .description("Description")
+                .duration(100)
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .mpa(MPA.builder().id(1).build())
+                .build();
+    }
+
+    private static Like like(long userId) {
+        return Like.builder().filmId(1).userId(userId).build();
+    }
+}
@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.inMemoryTest;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.LongSet;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LongSetTest {
+
+    @Test
+    public void test1_shouldAddAndRemoveValues() {
+        // Given
+        LongSet set = new LongSet();
+
+        // When
+        boolean isAdded = set.add(3);
+        boolean isAddedTwice = set.add(3);
+        set.add(1);
+        set.add(2);
+        boolean isRemoved = set.remove(2);
+        boolean isRemovedTwice = set.remove(2);
+
+        // Then
+        assertTrue(isAdded);
+        assertFalse(isAddedTwice);
+        assertTrue(isRemoved);
+        assertFalse(isRemovedTwice);
+        assertEquals(2, set.size());
+        assertArrayEquals(new long[]{1, 3}, set.toArray());
+        assertThrows(IllegalArgumentException.class, () -> set.add(0));
+    }
+
+    @Test
+    public void test2_shouldBehaveLikeHashSetUnderRandomOperations() {
+        // Given
+        Random random = new Random(42);
+        LongSet set = new LongSet();
+        Set<Long> expected = new HashSet<>();
+
+        // When
+        for (int i = 0; i < 100_000; i++) {
+            long value = 1 + random.nextInt(2_000);
+            switch (random.nextInt(3)) {
+                case 0:
+                    assertEquals(expected.add(value), set.add(value));
+                    break;
+                case 1:
+                    assertEquals(expected.remove(value), set.remove(value));
+                    break;
+                default:
+                    assertEquals(expected.contains(value), set.contains(value));
+            }
+        }
+
+        // Then
+        assertEquals(expected.size(), set.size());
+        assertArrayEquals(expected.stream().mapToLong(Long::longValue).sorted().toArray(), set.toArray());
+    }
+}
@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.metricsTest;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.metrics.LatencyHistogram;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void test1_shouldReturnZeroWhenEmpty() {
+        //Given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        //When
+        long p99 = histogram.getValueAtQuantile(0.99);
+
+        //Then
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, p99);
+    }
+
+    @Test
+    public void test2_shouldKeepSmallValuesExact() {
+        //Given
+        LatencyHistogram histogram = new LatencyHistogram();
+        IntStream.rangeClosed(1, 10).forEach(histogram::record);
+
+        //When
+        long p50 = histogram.getValueAtQuantile(0.5);
+        long p100 = histogram.getValueAtQuantile(1);
+
+        //Then
+        assertEquals(10, histogram.getCount());
+        assertEquals(5, p50);
+        assertEquals(10, p100);
+        assertEquals(5.5, histogram.getMean());
+    }
+
+    @Test
+    public void test3_shouldReportQuantilesWithinRelativeError() {
+        //Given
+        LatencyHistogram histogram = new LatencyHistogram();
+        IntStream.rangeClosed(1, 100_000).forEach(histogram::record);
+
+        //When
+        long p90 = histogram.getValueAtQuantile(0.9);
+        long p999 = histogram.getValueAtQuantile(0.999);
+
+        //Then
+        assertTrue(Math.abs(p90 - 90_000) <= 90_000 * 0.07, "p90 was " + p90);
+        assertTrue(Math.abs(p999 - 99_900) <= 99_900 * 0.07, "p99.9 was " + p999);
+        assertEquals(100_000, histogram.getMax());
+    }
+}
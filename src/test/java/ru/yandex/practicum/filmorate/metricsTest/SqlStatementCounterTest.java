@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.metricsTest;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.metrics.SqlStatementCounter;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SqlStatementCounterTest {
+
+    @Test
+    public void test1_shouldCountStatementsOfCurrentThread() throws Exception {
+        //Given
+        SqlStatementCounter counter = new SqlStatementCounter();
+        HikariDataSource pool = new HikariDataSource();
+        pool.setJdbcUrl("jdbc:h2:mem:statement-counter");
+        DataSource dataSource = (DataSource) counter.postProcessAfterInitialization(pool, "dataSource");
+        long before = counter.current();
+
+        //When
+        try (Connection connection = dataSource.getConnection()) {
+            connection.createStatement().close();
+            connection.prepareStatement("SELECT 1").close();
+        } finally {
+            pool.close();
+        }
+
+        //Then
+        assertEquals(2, counter.current() - before);
+    }
+
+    @Test
+    public void test2_shouldCloseWrappedPool() throws Exception {
+        //Given
+        SqlStatementCounter counter = new SqlStatementCounter();
+        HikariDataSource pool = new HikariDataSource();
+        Object dataSource = counter.postProcessAfterInitialization(pool, "dataSource");
+
+        //When
+        ((Closeable) dataSource).close();
+
+        //Then
+        assertTrue(pool.isClosed());
+    }
+}
@@ -137,7 +137,7 @@ public class UserValidationTest {
                 .build();
 
         //When
-        UserService service = new UserService(new InMemoryUserStorage());
+        UserService service = new UserService(new InMemoryUserStorage(), validator, event -> { }, 100_000);
         service.createUser(user);
 
         //Then